@@ -0,0 +1,94 @@
+package com.promptframework.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.promptframework.model.entity.TestResult;
+
+/**
+ * Deterministic fixtures shared by the CPU benchmarks.
+ */
+final class BenchmarkData {
+
+    // roughly by frequency; see sentence()
+    private static final String[] WORDS = ("the of and to a in is that for it as with was on be by this are or from "
+            + "at an which not have has can but all will one more their were they also other been its would about "
+            + "there these some when into only any what may such than then used each between over after most model "
+            + "prompt response system data user value output input example result step first second however because "
+            + "function process information different important approach following context performance quality "
+            + "question answer language text token request error time number case point method section summary "
+            + "therefore consider ensure provide include specific general common particular simple complex").split(" ");
+
+    private BenchmarkData() {
+    }
+
+    static List<TestResult> results(int count, int responseChars) {
+        List<TestResult> results = new ArrayList<>(count);
+        String response = "r".repeat(responseChars);
+        for (int i = 0; i < count; i++) {
+            TestResult result = new TestResult();
+            result.setId((long) i);
+            result.setTestRunId(1L);
+            result.setInputVariables(Map.of("task", "input " + i));
+            result.setAiResponse(response);
+            result.setResponseTimeMs(100 + (i * 37) % 900);
+            result.setTimeToFirstTokenMs(20 + (i * 13) % 200);
+            result.setTokenCount(responseChars / 4);
+            result.setCostUsd(BigDecimal.valueOf(0.00024));
+            result.setQualityScore(i % 5 == 0 ? null : 0.5 + (i % 50) / 100.0);
+            result.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(i));
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Long-form generations: markdown with headings, prose paragraphs and
+     * bullet lists over a frequency-weighted vocabulary, between minChars
+     * and maxChars long.
+     */
+    static List<String> longFormResponses(int count, int minChars, int maxChars) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int target = random.nextInt(minChars, maxChars + 1);
+            StringBuilder text = new StringBuilder(target + 200);
+            int section = 1;
+            while (text.length() < target) {
+                text.append("## Section ").append(section++).append(": ").append(sentence(random, 3, 6)).append("\n\n");
+                for (int p = random.nextInt(2, 5); p > 0; p--) {
+                    for (int s = random.nextInt(3, 8); s > 0; s--) {
+                        text.append(sentence(random, 8, 25)).append(". ");
+                    }
+                    text.append("\n\n");
+                }
+                if (random.nextInt(3) == 0) {
+                    for (int b = random.nextInt(3, 7); b > 0; b--) {
+                        text.append("- ").append(sentence(random, 4, 12)).append('\n');
+                    }
+                    text.append('\n');
+                }
+            }
+            responses.add(text.substring(0, target));
+        }
+        return responses;
+    }
+
+    private static String sentence(SplittableRandom random, int minWords, int maxWords) {
+        StringBuilder sentence = new StringBuilder();
+        for (int w = random.nextInt(minWords, maxWords + 1); w > 0; w--) {
+            if (!sentence.isEmpty()) {
+                sentence.append(' ');
+            }
+            // squaring the uniform draw favours the frequent words at the front
+            double u = random.nextDouble();
+            sentence.append(WORDS[(int) (u * u * WORDS.length)]);
+        }
+        sentence.setCharAt(0, Character.toUpperCase(sentence.charAt(0)));
+        return sentence.toString();
+    }
+}
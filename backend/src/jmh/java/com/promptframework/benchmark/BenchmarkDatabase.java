@@ -0,0 +1,46 @@
+package com.promptframework.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+/**
+ * Builds a plain MyBatis session factory over the application's mapper XML,
+ * so database benchmarks measure the same SQL without starting Spring.
+ * Point it at a database with -Dbench.jdbc.url / .user / .password; the
+ * defaults match docker-compose.yml.
+ */
+final class BenchmarkDatabase {
+
+    private BenchmarkDatabase() {
+    }
+
+    static SqlSessionFactory sessionFactory(String... mapperResources) throws IOException {
+        PooledDataSource dataSource = new PooledDataSource(
+                "org.postgresql.Driver",
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/prompt_testing"),
+                System.getProperty("bench.jdbc.user", "promptuser"),
+                System.getProperty("bench.jdbc.password", "promptpass"));
+        dataSource.setPoolMaximumActiveConnections(32);
+
+        Configuration configuration = new Configuration(
+                new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.getTypeAliasRegistry().registerAliases("com.promptframework.model.entity");
+
+        for (String resource : mapperResources) {
+            try (InputStream in = Resources.getResourceAsStream(resource)) {
+                new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+            }
+        }
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+}
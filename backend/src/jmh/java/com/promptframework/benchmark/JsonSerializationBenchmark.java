@@ -0,0 +1,100 @@
+package com.promptframework.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.promptframework.model.dto.QuickTestResponse;
+import com.promptframework.model.dto.QuickTestResult;
+import com.promptframework.model.dto.TestRunResponse;
+import com.promptframework.model.entity.TestResult;
+import com.promptframework.service.MetricsService;
+
+/**
+ * Response serialization of the two result-heavy payloads, with the
+ * ObjectMapper set up like application.yml configures Spring's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int resultCount;
+
+    @Param({"200", "4000"})
+    public int responseChars;
+
+    private ObjectMapper objectMapper;
+    private TestRunResponse testRunResponse;
+    private QuickTestResponse quickTestResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        List<TestResult> results = BenchmarkData.results(resultCount, responseChars);
+
+        testRunResponse = new TestRunResponse();
+        testRunResponse.setId(1L);
+        testRunResponse.setPromptVersionId(1L);
+        testRunResponse.setAiProvider("openai");
+        testRunResponse.setModelName("gpt-4o-mini");
+        testRunResponse.setStatus("COMPLETED");
+        testRunResponse.setResults(results);
+        testRunResponse.setMetrics(new MetricsService().calculateMetrics(results));
+
+        List<QuickTestResult> quickResults = new ArrayList<>(resultCount);
+        for (TestResult result : results) {
+            QuickTestResult quick = new QuickTestResult();
+            quick.setInputVariables(result.getInputVariables());
+            quick.setAiResponse(result.getAiResponse());
+            quick.setResponseTimeMs(result.getResponseTimeMs());
+            quick.setTimeToFirstTokenMs(result.getTimeToFirstTokenMs());
+            quick.setTokenCount(result.getTokenCount());
+            quick.setCostUsd(result.getCostUsd().doubleValue());
+            quick.setQualityScore(result.getQualityScore());
+            quick.setCached(false);
+            quickResults.add(quick);
+        }
+        quickTestResponse = new QuickTestResponse();
+        quickTestResponse.setPromptContent("You are a helpful assistant. Please help with: {task}");
+        quickTestResponse.setAiProvider("openai");
+        quickTestResponse.setModelName("gpt-4o-mini");
+        quickTestResponse.setResults(quickResults);
+        quickTestResponse.setMetrics(new QuickTestResponse.MetricsSummary(400.0, 80.0, 0.7, 1000, 0.01));
+    }
+
+    @Benchmark
+    public byte[] testRunResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(testRunResponse);
+    }
+
+    @Benchmark
+    public byte[] quickTestResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(quickTestResponse);
+    }
+}
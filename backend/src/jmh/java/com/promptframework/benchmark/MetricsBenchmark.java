@@ -0,0 +1,57 @@
+package com.promptframework.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.promptframework.model.dto.TestRunResponse;
+import com.promptframework.model.entity.TestResult;
+import com.promptframework.model.entity.TestRunMetrics;
+import com.promptframework.service.MetricsService;
+
+/**
+ * Metrics over a run's results: the full recomputation in calculateMetrics
+ * against summarizing the stored per-run row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int resultCount;
+
+    private final MetricsService metricsService = new MetricsService();
+    private List<TestResult> results;
+    private TestRunMetrics stored;
+
+    @Setup
+    public void setUp() {
+        results = BenchmarkData.results(resultCount, 200);
+        stored = metricsService.accumulate(1L, results, 0);
+    }
+
+    @Benchmark
+    public TestRunResponse.MetricsSummary calculateMetrics() {
+        return metricsService.calculateMetrics(results);
+    }
+
+    @Benchmark
+    public TestRunResponse.MetricsSummary summarizeStored() {
+        return metricsService.summarize(stored);
+    }
+}
@@ -0,0 +1,71 @@
+package com.promptframework.benchmark;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.promptframework.config.ModelPricingProperties;
+import com.promptframework.config.ProviderProperties;
+import com.promptframework.metrics.ExecutionMetrics;
+import com.promptframework.provider.OpenAiModelProvider;
+import com.promptframework.service.AIExecutionService;
+import com.promptframework.service.ChatModelRegistry;
+import com.promptframework.service.TokenCounter;
+import com.promptframework.template.PromptTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The whole mock-mode execute path, metrics recording included: what a
+ * test run costs per input on the server with no model in the way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockExecutionBenchmark {
+
+    private AIExecutionService aiExecutionService;
+    private PromptTemplate template;
+    private Map<String, String> variables;
+
+    @Setup
+    public void setUp() {
+        // an openai provider without a configured key means mock mode; the cache, router, rate limiter and
+        // hedging are never reached, but mock responses still count their tokens
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ModelPricingProperties pricing = new ModelPricingProperties();
+        aiExecutionService = new AIExecutionService(
+                null,
+                new ChatModelRegistry(List.of(new OpenAiModelProvider(new ProviderProperties())),
+                        meterRegistry, 100, Duration.ofMinutes(10)),
+                null,
+                new ExecutionMetrics(meterRegistry),
+                null,
+                null,
+                null,
+                new TokenCounter(pricing),
+                pricing);
+        template = PromptTemplate.compile("You are a helpful assistant. Please help with: {task}");
+        variables = Map.of("task", "summarize the release notes");
+    }
+
+    @Benchmark
+    public AIExecutionService.AIResponse execute() {
+        return aiExecutionService.execute(template, variables, "openai", "gpt-4o-mini", null);
+    }
+}
@@ -0,0 +1,67 @@
+package com.promptframework.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.promptframework.template.PromptTemplate;
+
+/**
+ * Variable resolution across prompt sizes and variable counts: rendering a
+ * cached compiled template, and compiling plus rendering as a cache miss
+ * does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptTemplateBenchmark {
+
+    @Param({"200", "2000", "20000"})
+    public int promptChars;
+
+    @Param({"1", "10", "50"})
+    public int variableCount;
+
+    private String source;
+    private PromptTemplate template;
+    private Map<String, String> values;
+
+    @Setup
+    public void setUp() {
+        values = new HashMap<>();
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < variableCount; i++) {
+            values.put("var" + i, "value number " + i);
+            // mix both supported placeholder styles
+            placeholders.append(i % 2 == 0 ? "{{var" + i + "}} " : "{var" + i + "} ");
+        }
+        int filler = Math.max(0, promptChars - placeholders.length());
+        source = "x".repeat(filler / 2) + placeholders + "y".repeat(filler - filler / 2);
+        template = PromptTemplate.compile(source);
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render(values);
+    }
+
+    @Benchmark
+    public String compileAndRender() {
+        return PromptTemplate.compile(source).render(values);
+    }
+}
@@ -0,0 +1,119 @@
+package com.promptframework.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.promptframework.mapper.handler.CompressedTextTypeHandler;
+import com.promptframework.model.dto.TestRunResponse;
+import com.promptframework.model.entity.TestResult;
+
+/**
+ * Cost and payoff of storing long responses compressed. Times deflating and
+ * inflating a corpus of long-form generations, and serializing a run with
+ * full bodies against one with previews. The storage and payload sizes are
+ * printed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseBodyBenchmark {
+
+    private static final int RESPONSES = 200;
+    private static final int PREVIEW_CHARS = 1000;  // ai.persistence.response-preview-chars
+
+    private ObjectMapper objectMapper;
+    private List<String> corpus;
+    private List<byte[]> compressed;
+    private TestRunResponse fullRun;
+    private TestRunResponse previewRun;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        corpus = BenchmarkData.longFormResponses(RESPONSES, 2_000, 20_000);
+        compressed = corpus.stream().map(CompressedTextTypeHandler::compress).toList();
+
+        List<TestResult> full = BenchmarkData.results(RESPONSES, 0);
+        List<TestResult> previews = BenchmarkData.results(RESPONSES, 0);
+        for (int i = 0; i < RESPONSES; i++) {
+            String text = corpus.get(i);
+            full.get(i).setAiResponse(text);
+            previews.get(i).setAiResponse(text.substring(0, Math.min(PREVIEW_CHARS, text.length())));
+            previews.get(i).setResponseLength(text.length());
+            previews.get(i).setResponseTruncated(text.length() > PREVIEW_CHARS);
+        }
+        fullRun = run(full);
+        previewRun = run(previews);
+
+        long rawBytes = corpus.stream().mapToLong(text -> text.getBytes(StandardCharsets.UTF_8).length).sum();
+        long storedBytes = compressed.stream().mapToLong(body -> body.length).sum()
+                + (long) RESPONSES * PREVIEW_CHARS;
+        long fullJson = objectMapper.writeValueAsBytes(fullRun).length;
+        long previewJson = objectMapper.writeValueAsBytes(previewRun).length;
+        System.out.printf("%nCorpus of %d responses: %,d bytes raw, %,d stored as preview + deflate (%.1f%%)%n",
+                RESPONSES, rawBytes, storedBytes, 100.0 * storedBytes / rawBytes);
+        System.out.printf("Run payload: %,d bytes with full bodies, %,d with previews (%.1f%%)%n",
+                fullJson, previewJson, 100.0 * previewJson / fullJson);
+    }
+
+    private static TestRunResponse run(List<TestResult> results) {
+        TestRunResponse response = new TestRunResponse();
+        response.setId(1L);
+        response.setStatus("COMPLETED");
+        response.setResults(results);
+        return response;
+    }
+
+    @Benchmark
+    public List<byte[]> compressCorpus() {
+        List<byte[]> out = new ArrayList<>(RESPONSES);
+        for (String text : corpus) {
+            out.add(CompressedTextTypeHandler.compress(text));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public void decompressCorpus(Blackhole blackhole) throws SQLException {
+        for (byte[] body : compressed) {
+            blackhole.consume(CompressedTextTypeHandler.decompress(body));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeFullBodies() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(fullRun);
+    }
+
+    @Benchmark
+    public byte[] serializePreviews() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(previewRun);
+    }
+}
@@ -0,0 +1,136 @@
+package com.promptframework.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.promptframework.mapper.TestResultMapper;
+import com.promptframework.mapper.TestRunMapper;
+import com.promptframework.model.entity.TestResult;
+import com.promptframework.model.entity.TestRun;
+
+/**
+ * Rows/sec of the result write path: one committed insert per row (the old
+ * engine) against multi-row insertBatch and a MyBatis BATCH executor
+ * session. Needs a running PostgreSQL, see {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TestResultInsertBenchmark {
+
+    private static final int ROWS = 500;
+
+    // above the ~420-char fixture responses, so every row stays inline
+    private static final int PREVIEW_CHARS = 1000;
+
+    @Param({"50", "200"})
+    public int batchSize;
+
+    private SqlSessionFactory sessionFactory;
+    private Long testRunId;
+    private List<TestResult> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sessionFactory = BenchmarkDatabase.sessionFactory(
+                "mapper/TestRunMapper.xml", "mapper/TestRunMetricsMapper.xml", "mapper/TestResultMapper.xml");
+
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            TestRun run = new TestRun();
+            run.setAiProvider("benchmark");
+            run.setModelName("insert");
+            run.setStatus("RUNNING");
+            run.setTotalInputs(0);
+            session.getMapper(TestRunMapper.class).insert(run);
+            testRunId = run.getId();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void freshRows() {
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            TestResult result = new TestResult();
+            result.setTestRunId(testRunId);
+            result.setAiResponse("Benchmark response " + i + " ".repeat(400));
+            result.setResponseTimeMs(150 + i % 100);
+            result.setTokenCount(120);
+            result.setCostUsd(BigDecimal.valueOf(0.00024));
+            result.setQualityScore(0.8);
+            rows.add(result);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (SqlSession session = sessionFactory.openSession(true);
+                Statement statement = session.getConnection().createStatement()) {
+            // test_results rows go with it through ON DELETE CASCADE
+            statement.executeUpdate("DELETE FROM test_runs WHERE id = " + testRunId);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void perRowInsert() {
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            TestResultMapper mapper = session.getMapper(TestResultMapper.class);
+            for (TestResult row : rows) {
+                mapper.insert(row, PREVIEW_CHARS);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void multiRowInsert() {
+        try (SqlSession session = sessionFactory.openSession(false)) {
+            TestResultMapper mapper = session.getMapper(TestResultMapper.class);
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                mapper.insertBatch(rows.subList(from, Math.min(from + batchSize, rows.size())), PREVIEW_CHARS);
+                session.commit();
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batchExecutorInsert() {
+        try (SqlSession session = sessionFactory.openSession(ExecutorType.BATCH, false)) {
+            TestResultMapper mapper = session.getMapper(TestResultMapper.class);
+            for (int i = 0; i < rows.size(); i++) {
+                mapper.insert(rows.get(i), PREVIEW_CHARS);
+                if ((i + 1) % batchSize == 0) {
+                    session.flushStatements();
+                    session.commit();
+                }
+            }
+            session.commit();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.promptframework.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.promptframework.config.ModelPricingProperties;
+import com.promptframework.service.TokenCounter;
+import com.promptframework.template.PromptTemplate;
+
+/**
+ * Pre-flight token counting of a dataset's prompts: tokenizing every
+ * rendered prompt, against counting the template's literal text once and
+ * adding each row's values. Prints how far apart the two totals are.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenCountBenchmark {
+
+    private static final int ROWS = 1_000;
+    private static final String PROVIDER = "openai";
+    private static final String MODEL = "gpt-4";
+
+    @Param({"2000", "20000"})
+    public int templateChars;
+
+    private TokenCounter tokenCounter;
+    private PromptTemplate template;
+    private List<Map<String, String>> rows;
+
+    @Setup
+    public void setUp() {
+        tokenCounter = new TokenCounter(new ModelPricingProperties());
+        String prose = BenchmarkData.longFormResponses(1, templateChars, templateChars).get(0);
+        template = PromptTemplate.compile(prose.substring(0, prose.length() / 2)
+                + "\n\nQuestion: {{question}}\nCategory: {{category}}\n\n" + prose.substring(prose.length() / 2));
+
+        List<String> answers = BenchmarkData.longFormResponses(ROWS, 50, 400);
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, String> row = new HashMap<>();
+            row.put("question", answers.get(i));
+            row.put("category", "category " + i % 8);
+            rows.add(row);
+        }
+
+        long exact = renderAndCount();
+        long composed = countComposed();
+        System.out.printf("%nExact %,d tokens, composed %,d (%+.2f%%)%n", exact, composed, 100.0 * (composed - exact) / exact);
+    }
+
+    @Benchmark
+    public long renderAndCount() {
+        long total = 0;
+        for (Map<String, String> row : rows) {
+            total += tokenCounter.count(PROVIDER, MODEL, template.render(row));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long countComposed() {
+        long total = 0;
+        for (Map<String, String> row : rows) {
+            total += tokenCounter.countPrompt(PROVIDER, MODEL, template, row);
+        }
+        return total;
+    }
+}
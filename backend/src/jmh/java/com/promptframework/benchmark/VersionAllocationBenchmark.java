@@ -0,0 +1,134 @@
+package com.promptframework.benchmark;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import com.promptframework.mapper.PromptMapper;
+import com.promptframework.mapper.PromptVersionMapper;
+import com.promptframework.model.entity.Prompt;
+import com.promptframework.model.entity.PromptVersion;
+import com.promptframework.service.ContentHash;
+
+/**
+ * Many writers saving versions of one prompt at once. {@code counterRow}
+ * allocates numbers the way PromptService does; {@code maxPlusOne} is the
+ * old read-then-insert, kept as the baseline. Each reports saved and
+ * conflicting saves as secondary results, and the trial fails if the
+ * counter path ever conflicts. Needs a running PostgreSQL, see
+ * {@link BenchmarkDatabase}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class VersionAllocationBenchmark {
+
+    private static final String CONTENT = "Benchmark prompt for {task}";
+
+    private SqlSessionFactory sessionFactory;
+    private Long promptId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sessionFactory = BenchmarkDatabase.sessionFactory("mapper/PromptMapper.xml", "mapper/PromptVersionMapper.xml");
+
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            Prompt prompt = new Prompt();
+            prompt.setName("version allocation benchmark");
+            session.getMapper(PromptMapper.class).insert(prompt);
+            promptId = prompt.getId();
+            session.getMapper(PromptVersionMapper.class).insertContent(ContentHash.of(CONTENT), CONTENT);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (SqlSession session = sessionFactory.openSession(true);
+                Statement statement = session.getConnection().createStatement()) {
+            // versions go with it through ON DELETE CASCADE; the shared content row stays
+            statement.executeUpdate("DELETE FROM prompts WHERE id = " + promptId);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+
+        public long saved;
+        public long conflicts;
+
+        @TearDown(Level.Trial)
+        public void check(BenchmarkParams params) {
+            if (params.getBenchmark().endsWith("counterRow") && conflicts > 0) {
+                throw new IllegalStateException(conflicts + " version saves failed with the counter row");
+            }
+        }
+    }
+
+    @Benchmark
+    public void counterRow(Outcomes outcomes) {
+        try (SqlSession session = sessionFactory.openSession(false)) {
+            Integer number = session.getMapper(PromptMapper.class).allocateVersionNumber(promptId);
+            insertVersion(session, number);
+            session.commit();
+            outcomes.saved++;
+        } catch (PersistenceException e) {
+            outcomes.conflicts++;
+        }
+    }
+
+    @Benchmark
+    public void maxPlusOne(Outcomes outcomes) throws SQLException {
+        try (SqlSession session = sessionFactory.openSession(false)) {
+            int number;
+            try (PreparedStatement select = session.getConnection().prepareStatement(
+                    "SELECT COALESCE(MAX(version_number) + 1, 1) FROM prompt_versions WHERE prompt_id = ?")) {
+                select.setLong(1, promptId);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    number = rs.getInt(1);
+                }
+            }
+            insertVersion(session, number);
+            session.commit();
+            outcomes.saved++;
+        } catch (PersistenceException e) {
+            outcomes.conflicts++;
+        }
+    }
+
+    private void insertVersion(SqlSession session, int number) {
+        PromptVersion version = new PromptVersion();
+        version.setPromptId(promptId);
+        version.setVersionNumber(number);
+        version.setContentHash(ContentHash.of(CONTENT));
+        version.setVariables(List.of("task"));
+        session.getMapper(PromptVersionMapper.class).insert(version);
+    }
+}
@@ -0,0 +1,25 @@
+package com.promptframework.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.execution")
+public class ExecutionProperties {
+
+    // upper bound on in-flight calls against a single provider/model pair
+    private int maxConcurrencyPerModel = 8;
+
+    // overrides keyed by "provider:model", e.g. '[openai:gpt-4]': 2
+    private Map<String, Integer> modelConcurrency = new HashMap<>();
+
+    public int concurrencyFor(String provider, String modelName) {
+        return modelConcurrency.getOrDefault(provider + ":" + modelName, maxConcurrencyPerModel);
+    }
+}
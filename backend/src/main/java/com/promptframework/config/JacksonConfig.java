@@ -0,0 +1,21 @@
+package com.promptframework.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promptframework.metrics.TimedJacksonHttpMessageConverter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class JacksonConfig {
+
+    // replaces Boot's default converter, keeping its auto-configured ObjectMapper
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
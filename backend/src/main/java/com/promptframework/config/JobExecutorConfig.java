@@ -0,0 +1,29 @@
+package com.promptframework.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class JobExecutorConfig {
+
+    /**
+     * Background executor for test-run jobs. Each job fans its inputs out
+     * through the ExecutionEngine, so a handful of threads is enough here.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor testRunJobExecutor(
+            @Value("${ai.jobs.max-concurrent-runs:4}") int maxConcurrentRuns,
+            @Value("${ai.jobs.queue-capacity:100}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentRuns);
+        executor.setMaxPoolSize(maxConcurrentRuns);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("test-run-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
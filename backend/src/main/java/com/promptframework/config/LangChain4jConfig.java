@@ -1,25 +0,0 @@
-package com.promptframework.config;
-
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-import dev.langchain4j.model.chat.ChatLanguageModel;
-import dev.langchain4j.model.openai.OpenAiChatModel;
-
-@Configuration
-public class LangChain4jConfig {
-
-    @Bean
-    @ConditionalOnProperty("langchain4j.open-ai.chat-model.api-key")
-    public ChatLanguageModel globalOpenAiChatModel(
-            @Value("${langchain4j.open-ai.chat-model.api-key}") String apiKey,
-            @Value("${langchain4j.open-ai.chat-model.model-name:gpt-3.5-turbo}") String modelName) {
-
-        return OpenAiChatModel.builder()
-                .apiKey(apiKey)
-                .modelName(modelName)
-                .build();
-    }
-}
@@ -0,0 +1,57 @@
+package com.promptframework.config;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.pricing")
+public class ModelPricingProperties {
+
+    // applied to models without an entry below
+    private Model defaults = new Model();
+
+    // keyed by "provider:model", e.g. '[openai:gpt-4]': {input-per-1k: 0.03, output-per-1k: 0.06, context-window: 8192}
+    private Map<String, Model> models = new HashMap<>();
+
+    public Model forModel(String provider, String modelName) {
+        Model override = models.get(provider + ":" + modelName);
+        Model model = new Model();
+        model.setInputPer1k(override != null && override.getInputPer1k() != null
+                ? override.getInputPer1k() : defaults.getInputPer1k());
+        model.setOutputPer1k(override != null && override.getOutputPer1k() != null
+                ? override.getOutputPer1k() : defaults.getOutputPer1k());
+        model.setContextWindow(override != null && override.getContextWindow() != null
+                ? override.getContextWindow() : defaults.getContextWindow());
+        model.setTokenizer(override != null && override.getTokenizer() != null
+                ? override.getTokenizer() : defaults.getTokenizer());
+        return model;
+    }
+
+    @Data
+    public static class Model {
+
+        // USD per 1,000 prompt and completion tokens
+        private BigDecimal inputPer1k;
+        private BigDecimal outputPer1k;
+
+        // prompt tokens the model accepts; null skips the pre-flight check
+        private Integer contextWindow;
+
+        // OpenAI model whose encoding counts this model's tokens locally;
+        // an approximation for other providers' models
+        private String tokenizer;
+
+        public BigDecimal costOf(long promptTokens, long completionTokens) {
+            BigDecimal input = inputPer1k == null ? BigDecimal.ZERO : inputPer1k.multiply(BigDecimal.valueOf(promptTokens));
+            BigDecimal output = outputPer1k == null ? BigDecimal.ZERO : outputPer1k.multiply(BigDecimal.valueOf(completionTokens));
+            return input.add(output).movePointLeft(3);
+        }
+    }
+}
@@ -1,5 +1,18 @@
 package com.promptframework.config;
 
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.promptframework.metrics.MapperTimingInterceptor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
 public class MyBatisConfig {
 
+    // picked up by the MyBatis auto-configuration like any Interceptor bean
+    @Bean
+    public MapperTimingInterceptor mapperTimingInterceptor(MeterRegistry meterRegistry) {
+        return new MapperTimingInterceptor(meterRegistry);
+    }
 }
@@ -0,0 +1,34 @@
+package com.promptframework.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Connection settings of the hosted model providers. A call that brings
+ * its own key (X-API-KEY) uses that instead of the configured one.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.providers")
+public class ProviderProperties {
+
+    private Provider openai = new Provider();
+
+    private Provider anthropic = new Provider();
+
+    @Data
+    public static class Provider {
+
+        // blank when not configured; calls without a key of their own are then mocked
+        private String apiKey;
+
+        // null for the provider's public endpoint
+        private String baseUrl;
+
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+}
@@ -0,0 +1,51 @@
+package com.promptframework.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.rate-limits")
+public class RateLimitProperties {
+
+    // budgets per provider/model/API key; 0 disables that bucket
+    private int requestsPerMinute = 3000;
+    private int tokensPerMinute = 250000;
+
+    // overrides keyed by "provider:model", e.g. '[openai:gpt-4]': {requests-per-minute: 500}
+    private Map<String, Budget> models = new HashMap<>();
+
+    // charged against the TPM bucket up front, corrected once the call is done
+    private int expectedOutputTokens = 256;
+
+    // retries after a 429 or 5xx before the result is recorded as FAILED
+    private int maxRetries = 3;
+    private Duration initialBackoff = Duration.ofMillis(500);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    // AIMD: the concurrency limit is multiplied by this on a 429
+    private double decreaseFactor = 0.5;
+
+    public Budget budgetFor(String provider, String modelName) {
+        Budget override = models.get(provider + ":" + modelName);
+        Budget budget = new Budget();
+        budget.setRequestsPerMinute(override != null && override.getRequestsPerMinute() != null
+                ? override.getRequestsPerMinute() : requestsPerMinute);
+        budget.setTokensPerMinute(override != null && override.getTokensPerMinute() != null
+                ? override.getTokensPerMinute() : tokensPerMinute);
+        return budget;
+    }
+
+    @Data
+    public static class Budget {
+
+        private Integer requestsPerMinute;
+        private Integer tokensPerMinute;
+    }
+}
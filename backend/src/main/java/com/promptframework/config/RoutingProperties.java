@@ -0,0 +1,32 @@
+package com.promptframework.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Groups of interchangeable models for the "fastest" routing policy, and
+ * how the live latency and error rate of each model are tracked.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.routing")
+public class RoutingProperties {
+
+    // group name to its members as "provider:model", e.g. fast-chat: ['openai:gpt-4o-mini', ...]
+    private Map<String, List<String>> equivalents = new HashMap<>();
+
+    // weight of the newest call in the moving averages
+    private double ewmaAlpha = 0.2;
+
+    // calls a model needs before its averages are trusted; until then it is preferred
+    private int minSamples = 5;
+
+    // share of calls sent to a random member, so a recovered provider is noticed
+    private double exploreFraction = 0.05;
+}
@@ -0,0 +1,53 @@
+package com.promptframework.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Behaviour of the local "stub" provider used for offline load tests.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "ai.stub")
+public class StubProviderProperties {
+
+    private Latency firstToken = new Latency();
+
+    // output streaming speed once the first token has arrived
+    private double tokensPerSecond = 50;
+
+    private int responseTokens = 100;
+
+    // fraction of calls failing with 429 and with a 5xx
+    private double rateLimitErrorRate = 0.0;
+    private double serverErrorRate = 0.0;
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    // fixed seed for reproducible runs; null seeds from the clock
+    private Long seed;
+
+    @Data
+    public static class Latency {
+
+        // FIXED, NORMAL or LONG_TAIL
+        private Distribution distribution = Distribution.NORMAL;
+
+        // the mean for FIXED and NORMAL, the median for LONG_TAIL
+        private double meanMs = 200;
+
+        private double stddevMs = 50;
+
+        // shape of LONG_TAIL (log-normal sigma); 1.0 puts p99 at ~10x the median
+        private double tailSigma = 1.0;
+    }
+
+    public enum Distribution {
+        FIXED,
+        NORMAL,
+        LONG_TAIL
+    }
+}
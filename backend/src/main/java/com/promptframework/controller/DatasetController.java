@@ -0,0 +1,71 @@
+package com.promptframework.controller;
+
+import com.promptframework.model.entity.Dataset;
+import com.promptframework.model.entity.DatasetRow;
+import com.promptframework.service.DatasetService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/datasets")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class DatasetController {
+
+    private final DatasetService datasetService;
+
+    /**
+     * Imports the request body as a dataset. The body is the raw file, not
+     * a multipart form, so it is parsed as it arrives. The format comes from
+     * {@code format} or else the Content-Type.
+     */
+    @PostMapping
+    public ResponseEntity<Dataset> importDataset(
+            @RequestParam String name,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) {
+        String resolved = format != null ? format.toLowerCase() : formatOf(contentType);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(datasetService.importDataset(name, description, resolved, body));
+    }
+
+    private static String formatOf(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase();
+        if (type.startsWith("text/csv")) {
+            return "csv";
+        }
+        if (type.contains("ndjson") || type.contains("jsonl") || type.contains("json-seq")) {
+            return "jsonl";
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Send text/csv or application/x-ndjson, or give format=csv|jsonl");
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Dataset>> getDatasets() {
+        return ResponseEntity.ok(datasetService.getRecentDatasets());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Dataset> getDataset(@PathVariable Long id) {
+        return ResponseEntity.ok(datasetService.getDataset(id));
+    }
+
+    @GetMapping("/{id}/rows")
+    public ResponseEntity<List<DatasetRow>> getRows(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "-1") int after,
+            @RequestParam(defaultValue = "100") int limit) {
+        datasetService.getDataset(id);
+        return ResponseEntity.ok(datasetService.getRows(id, after, limit));
+    }
+}
@@ -0,0 +1,40 @@
+package com.promptframework.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.promptframework.model.dto.MatrixRunRequest;
+import com.promptframework.model.dto.MatrixRunResponse;
+import com.promptframework.service.TestRunService;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/matrix-runs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class MatrixRunController {
+
+    private final TestRunService testRunService;
+
+    @PostMapping
+    public ResponseEntity<MatrixRunResponse> submitMatrix(
+            @Valid @RequestBody MatrixRunRequest request,
+            @RequestHeader(value = "X-API-KEY", required = false) String apiKey) {
+
+        return ResponseEntity.accepted().body(testRunService.submitMatrix(request, apiKey));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<MatrixRunResponse> getMatrixRun(@PathVariable Long id) {
+        return ResponseEntity.ok(testRunService.getMatrixRun(id));
+    }
+}
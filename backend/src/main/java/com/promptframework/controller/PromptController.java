@@ -1,8 +1,9 @@
 package com.promptframework.controller;
 
 import com.promptframework.model.dto.PromptCreateRequest;
+import com.promptframework.model.dto.PromptPage;
 import com.promptframework.model.dto.PromptResponse;
-import com.promptframework.model.entity.Prompt;
+import com.promptframework.model.dto.VersionDiff;
 import com.promptframework.model.entity.PromptVersion;
 import com.promptframework.service.PromptService;
 import jakarta.validation.Valid;
@@ -11,7 +12,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -29,8 +29,10 @@ public class PromptController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Prompt>> getAllPrompts() {
-        return ResponseEntity.ok(promptService.getAllPrompts());
+    public ResponseEntity<PromptPage> getPrompts(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(promptService.getPrompts(before, limit));
     }
 
     @GetMapping("/{id}")
@@ -38,6 +40,21 @@ public class PromptController {
         return ResponseEntity.ok(promptService.getPromptById(id));
     }
 
+    @GetMapping("/{id}/versions/{versionId}")
+    public ResponseEntity<PromptVersion> getVersion(
+            @PathVariable Long id,
+            @PathVariable Long versionId) {
+        return ResponseEntity.ok(promptService.getVersion(id, versionId));
+    }
+
+    @GetMapping("/{id}/diff")
+    public ResponseEntity<VersionDiff> diffVersions(
+            @PathVariable Long id,
+            @RequestParam Long from,
+            @RequestParam Long to) {
+        return ResponseEntity.ok(promptService.diffVersions(id, from, to));
+    }
+
     @PostMapping("/{id}/versions")
     public ResponseEntity<PromptVersion> createVersion(
             @PathVariable Long id,
@@ -1,9 +1,12 @@
 package com.promptframework.controller;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,11 +14,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.promptframework.model.dto.QuickTestRequest;
 import com.promptframework.model.dto.QuickTestResponse;
 import com.promptframework.model.dto.QuickTestResult;
 import com.promptframework.service.AIExecutionService;
+import com.promptframework.service.ExecutionEngine;
+import com.promptframework.service.HedgingPolicy;
+import com.promptframework.service.PromptTemplateService;
+import com.promptframework.service.TestRunEventPublisher;
+import com.promptframework.template.PromptTemplate;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +38,12 @@ import lombok.extern.slf4j.Slf4j;
 public class QuickTestController {
 
     private final AIExecutionService aiExecutionService;
+    private final ExecutionEngine executionEngine;
+    private final PromptTemplateService promptTemplateService;
+    private final HedgingPolicy hedgingPolicy;
+
+    @Value("${ai.streaming.timeout-ms:600000}")
+    private long streamTimeoutMs;
 
     @PostMapping
     public ResponseEntity<QuickTestResponse> quickTest(
@@ -38,41 +53,119 @@ public class QuickTestController {
         log.info("Running quick test with provider: {}, model: {}",
                 request.getAiProvider(), request.getModelName());
 
-        List<QuickTestResult> results = new ArrayList<>();
+        PromptTemplate template = promptTemplateService.compile(request.getPromptContent());
+        promptTemplateService.validateInputs(template, request.getTestInputs());
+        aiExecutionService.validateTarget(request.getAiProvider(), request.getModelName());
 
-        for (Map<String, String> variables : request.getTestInputs()) {
-            try {
-                AIExecutionService.AIResponse aiResponse = aiExecutionService.execute(
-                        request.getPromptContent(),
-                        variables,
-                        request.getAiProvider(),
-                        request.getModelName(),
-                        apiKey
-                );
-
-                QuickTestResult result = new QuickTestResult();
-                result.setInputVariables(variables);
-                result.setAiResponse(aiResponse.getResponseText());
-                result.setResponseTimeMs(aiResponse.getResponseTimeMs());
-                result.setTokenCount(aiResponse.getTokenCount());
-                result.setCostUsd(aiResponse.getCostUsd());
-                result.setQualityScore(calculateScore(aiResponse));
-
-                results.add(result);
+        List<QuickTestResult> results = runAll(template, request, apiKey, null);
+        return ResponseEntity.ok(buildResponse(request, results));
+    }
+
+    /**
+     * Streams the quick test as server-sent events: start, token and
+     * complete (or error) per input, then a final metrics event.
+     */
+    @PostMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter quickTestStream(
+            @Valid @RequestBody QuickTestRequest request,
+            @RequestHeader(value = "X-API-KEY", required = false) String apiKey) {
+
+        log.info("Streaming quick test with provider: {}, model: {}",
+                request.getAiProvider(), request.getModelName());
+
+        // validation failures still surface as a plain 400 before the stream opens
+        PromptTemplate template = promptTemplateService.compile(request.getPromptContent());
+        promptTemplateService.validateInputs(template, request.getTestInputs());
+        aiExecutionService.validateTarget(request.getAiProvider(), request.getModelName());
 
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Thread.ofVirtual().name("quick-test-stream").start(() -> {
+            try {
+                List<QuickTestResult> results = runAll(template, request, apiKey, emitter);
+                TestRunEventPublisher.send(emitter, "metrics", calculateMetrics(results));
+                emitter.complete();
             } catch (Exception e) {
-                log.error("Error executing quick test", e);
+                log.error("Quick test stream failed", e);
+                emitter.completeWithError(e);
             }
-        }
+        });
+        return emitter;
+    }
+
+    private List<QuickTestResult> runAll(PromptTemplate template, QuickTestRequest request,
+            String apiKey, SseEmitter emitter) {
+
+        List<Map<String, String>> inputs = request.getTestInputs();
+        HedgingPolicy.Budget hedgeBudget = hedgingPolicy.budgetFor(inputs.size());
+        return executionEngine.executeAll(
+                request.getAiProvider(),
+                request.getModelName(),
+                IntStream.range(0, inputs.size()).boxed().toList(),
+                index -> {
+                    Map<String, String> variables = inputs.get(index);
+                    AIExecutionService.ExecutionOptions options = new AIExecutionService.ExecutionOptions();
+                    options.setBypassCache(request.isBypassCache());
+                    options.setHedgeBudget(hedgeBudget);
+                    if (emitter != null) {
+                        TestRunEventPublisher.send(emitter, "start", Map.of("index", index, "inputVariables", variables));
+                        options.setTokenListener(token ->
+                                TestRunEventPublisher.send(emitter, "token", Map.of("index", index, "token", token)));
+                    }
+                    try {
+                        AIExecutionService.AIResponse aiResponse = aiExecutionService.execute(
+                                template,
+                                variables,
+                                request.getAiProvider(),
+                                request.getModelName(),
+                                apiKey,
+                                options
+                        );
+
+                        if (aiResponse.isFailed()) {
+                            if (emitter != null) {
+                                TestRunEventPublisher.send(emitter, "error",
+                                        Map.of("index", index, "message", String.valueOf(aiResponse.getErrorMessage())));
+                            }
+                            return null;
+                        }
+
+                        QuickTestResult result = new QuickTestResult();
+                        result.setInputVariables(variables);
+                        result.setAiResponse(aiResponse.getResponseText());
+                        result.setResponseTimeMs(aiResponse.getResponseTimeMs());
+                        result.setTimeToFirstTokenMs(aiResponse.getTimeToFirstTokenMs());
+                        result.setTokenCount(aiResponse.getTokenCount());
+                        result.setCostUsd(aiResponse.getCostUsd());
+                        result.setQualityScore(calculateScore(aiResponse));
+                        result.setCached(aiResponse.isCached());
+                        if (emitter != null) {
+                            TestRunEventPublisher.send(emitter, "complete", Map.of("index", index, "result", result));
+                        }
+                        return result;
+
+                    } catch (Exception e) {
+                        log.error("Error executing quick test", e);
+                        if (emitter != null) {
+                            TestRunEventPublisher.send(emitter, "error",
+                                    Map.of("index", index, "message", String.valueOf(e.getMessage())));
+                        }
+                        return null;
+                    }
+                },
+                null
+        ).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
 
+    private QuickTestResponse buildResponse(QuickTestRequest request, List<QuickTestResult> results) {
         QuickTestResponse response = new QuickTestResponse();
         response.setPromptContent(request.getPromptContent());
         response.setAiProvider(request.getAiProvider());
         response.setModelName(request.getModelName());
         response.setResults(results);
         response.setMetrics(calculateMetrics(results));
-
-        return ResponseEntity.ok(response);
+        return response;
     }
 
     private double calculateScore(AIExecutionService.AIResponse response) {
@@ -92,7 +185,7 @@ public class QuickTestController {
 
     private QuickTestResponse.MetricsSummary calculateMetrics(List<QuickTestResult> results) {
         if (results.isEmpty()) {
-            return new QuickTestResponse.MetricsSummary(0.0, 0.0, 0, 0.0);
+            return new QuickTestResponse.MetricsSummary(0.0, 0.0, 0.0, 0, 0.0);
         }
 
         double avgResponseTime = results.stream()
@@ -100,6 +193,13 @@ public class QuickTestController {
                 .average()
                 .orElse(0.0);
 
+        double avgTimeToFirstToken = results.stream()
+                .map(QuickTestResult::getTimeToFirstTokenMs)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .average()
+                .orElse(0.0);
+
         double avgQuality = results.stream()
                 .mapToDouble(QuickTestResult::getQualityScore)
                 .average()
@@ -113,6 +213,6 @@ public class QuickTestController {
                 .mapToDouble(QuickTestResult::getCostUsd)
                 .sum();
 
-        return new QuickTestResponse.MetricsSummary(avgResponseTime, avgQuality, totalTokens, totalCost);
+        return new QuickTestResponse.MetricsSummary(avgResponseTime, avgTimeToFirstToken, avgQuality, totalTokens, totalCost);
     }
 }
@@ -1,7 +1,14 @@
 package com.promptframework.controller;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,10 +17,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.promptframework.model.dto.ResultExportFilter;
+import com.promptframework.model.dto.RunEstimate;
+import com.promptframework.model.dto.TestRunPage;
 import com.promptframework.model.dto.TestRunRequest;
 import com.promptframework.model.dto.TestRunResponse;
+import com.promptframework.service.ResultExportService;
 import com.promptframework.service.TestRunService;
 
 import jakarta.validation.Valid;
@@ -28,13 +43,45 @@ import lombok.extern.slf4j.Slf4j;
 public class TestRunController {
 
     private final TestRunService testRunService;
+    private final ResultExportService resultExportService;
 
     @PostMapping
     public ResponseEntity<TestRunResponse> executeTest(
             @Valid @RequestBody TestRunRequest request,
             @RequestHeader(value = "X-API-KEY", required = false) String apiKey) {
 
-        return ResponseEntity.ok(testRunService.executeTest(request, apiKey));
+        return ResponseEntity.accepted().body(testRunService.submitTest(request, apiKey));
+    }
+
+    // 204 when no equivalent run exists; the key decides whether mock runs qualify
+    @PostMapping("/reusable")
+    public ResponseEntity<TestRunResponse> findReusableRun(
+            @Valid @RequestBody TestRunRequest request,
+            @RequestHeader(value = "X-API-KEY", required = false) String apiKey) {
+        TestRunResponse match = testRunService.findReusableRun(request, apiKey);
+        return match == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(match);
+    }
+
+    // dry run: projected tokens and cost, and inputs that would overflow the context window
+    @PostMapping("/estimate")
+    public ResponseEntity<RunEstimate> estimateRun(@Valid @RequestBody TestRunRequest request) {
+        return ResponseEntity.ok(testRunService.estimateRun(request));
+    }
+
+    @PostMapping("/{id}/rescore")
+    public ResponseEntity<Map<String, Object>> rescoreTestRun(
+            @PathVariable Long id,
+            @RequestBody(required = false) Map<String, String> body,
+            @RequestHeader(value = "X-API-KEY", required = false) String apiKey) {
+
+        String judgeModel = body == null ? null : body.get("judgeModel");
+        int queued = testRunService.rescoreTestRun(id, judgeModel, apiKey);
+        return ResponseEntity.accepted().body(Map.of("testRunId", id, "queuedResults", queued));
+    }
+
+    @GetMapping(path = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTestRun(@PathVariable Long id) {
+        return testRunService.streamTestRun(id);
     }
 
     @GetMapping("{id}")
@@ -42,9 +89,61 @@ public class TestRunController {
         return ResponseEntity.ok(testRunService.getTestRun(id));
     }
 
+    /**
+     * Downloads matching results as CSV or JSONL, written from a database
+     * cursor as they are read; e.g. {@code ?versionId=3&model=gpt-4&from=2025-01-01T00:00:00}.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportResults(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) Long runId,
+            @RequestParam(required = false) Long versionId,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        ResultExportService.Format exportFormat = switch (format.toLowerCase()) {
+            case "csv" -> ResultExportService.Format.CSV;
+            case "jsonl", "ndjson" -> ResultExportService.Format.JSONL;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        };
+        ResultExportFilter filter = new ResultExportFilter();
+        filter.setTestRunId(runId);
+        filter.setPromptVersionId(versionId);
+        filter.setModelName(model);
+        filter.setFrom(from);
+        filter.setTo(to);
+
+        String name = runId != null ? "test_run_" + runId
+                : versionId != null ? "version_" + versionId + "_results" : "results";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + exportFormat.getExtension()).build().toString())
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .body(out -> resultExportService.export(filter, exportFormat, out));
+    }
+
+    @GetMapping(path = "/results/{resultId}/body", produces = "text/plain;charset=UTF-8")
+    public ResponseEntity<String> getResultBody(@PathVariable Long resultId) {
+        return ResponseEntity.ok(testRunService.getResultBody(resultId));
+    }
+
     @GetMapping("/version/{versionId}")
     public ResponseEntity<List<TestRunResponse>> getTestRunsByVersion(@PathVariable Long versionId) {
         List<TestRunResponse> testRuns = testRunService.getTestRunsByVersion(versionId);
         return ResponseEntity.ok(testRuns);
     }
+
+    @GetMapping("/version/{versionId}/metrics")
+    public ResponseEntity<TestRunResponse.MetricsSummary> getVersionMetrics(@PathVariable Long versionId) {
+        return ResponseEntity.ok(testRunService.getVersionMetrics(versionId));
+    }
+
+    @GetMapping("/version/{versionId}/summary")
+    public ResponseEntity<TestRunPage> getTestRunSummaries(
+            @PathVariable Long versionId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(testRunService.getTestRunSummaries(versionId, before, limit));
+    }
 }
@@ -0,0 +1,33 @@
+package com.promptframework.mapper;
+
+import com.promptframework.model.entity.Dataset;
+import com.promptframework.model.entity.DatasetRow;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import java.util.List;
+
+@Mapper
+public interface DatasetMapper {
+
+    void insert(Dataset dataset);
+
+    void insertRows(@Param("rows") List<DatasetRow> rows);
+
+    // records the totals of a finished import and makes the dataset READY
+    void markReady(Dataset dataset);
+
+    Dataset findById(@Param("id") Long id);
+
+    List<Dataset> findRecent(@Param("limit") int limit);
+
+    // keyset page: rows with row_index greater than afterIndex
+    List<DatasetRow> findRows(@Param("datasetId") Long datasetId,
+            @Param("afterIndex") int afterIndex,
+            @Param("limit") int limit);
+
+    // rows at the given indexes, in row_index order
+    List<DatasetRow> findRowsByIndexes(@Param("datasetId") Long datasetId,
+            @Param("indexes") List<Integer> indexes);
+
+    void deleteById(@Param("id") Long id);
+}
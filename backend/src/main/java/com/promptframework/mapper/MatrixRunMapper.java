@@ -0,0 +1,16 @@
+package com.promptframework.mapper;
+
+import com.promptframework.model.entity.MatrixRun;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface MatrixRunMapper {
+
+    void insert(MatrixRun matrixRun);
+
+    MatrixRun findById(@Param("id") Long id);
+
+    void updateCompletion(@Param("id") Long id,
+            @Param("status") String status);
+}
@@ -1,6 +1,7 @@
 package com.promptframework.mapper;
 
 import com.promptframework.model.entity.Prompt;
+import com.promptframework.model.entity.PromptSummary;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import java.util.List;
@@ -13,7 +14,11 @@ public interface PromptMapper {
 
     Prompt findById(@Param("id") Long id);
 
-    List<Prompt> findAll();
+    // newest first; beforeId is the last id of the previous page
+    List<PromptSummary> findPage(@Param("beforeId") Long beforeId, @Param("limit") int limit);
+
+    // next version number for the prompt, or null if it does not exist
+    Integer allocateVersionNumber(@Param("id") Long id);
 
     void update(Prompt prompt);
 
@@ -1,6 +1,7 @@
 package com.promptframework.mapper;
 
 import com.promptframework.model.entity.PromptVersion;
+import com.promptframework.model.entity.PromptVersionHeader;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import java.util.List;
@@ -8,13 +9,14 @@ import java.util.List;
 @Mapper
 public interface PromptVersionMapper {
 
+    // stores the text under its hash unless it is already there
+    void insertContent(@Param("hash") String hash, @Param("content") String content);
+
     void insert(PromptVersion promptVersion);
 
     PromptVersion findById(@Param("id") Long id);
 
-    List<PromptVersion> findByPromptId(@Param("promptId") Long promptId);
+    List<PromptVersionHeader> findHeadersByPromptId(@Param("promptId") Long promptId);
 
     PromptVersion findLatestByPromptId(@Param("promptId") Long promptId);
-
-    Integer getNextVersionNumber(@Param("promptId") Long promptId);
 }
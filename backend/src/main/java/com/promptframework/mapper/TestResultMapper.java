@@ -1,16 +1,46 @@
 package com.promptframework.mapper;
 
+import com.promptframework.model.dto.ResultExportFilter;
+import com.promptframework.model.entity.QualityStats;
+import com.promptframework.model.entity.ResultExportRow;
 import com.promptframework.model.entity.TestResult;
+import com.promptframework.model.entity.TestResultBody;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import java.util.List;
 
 @Mapper
 public interface TestResultMapper {
 
-    void insert(TestResult testResult);
+    // ai_response keeps the first previewChars characters of the response
+    void insert(@Param("result") TestResult testResult, @Param("previewChars") int previewChars);
+
+    // fills in the generated id of every element
+    void insertBatch(@Param("list") List<TestResult> testResults, @Param("previewChars") int previewChars);
+
+    // compressed full text of responses longer than the preview; ids must be set
+    void insertBodies(@Param("list") List<TestResult> testResults);
+
+    void updateQualityScore(@Param("id") Long id, @Param("qualityScore") Double qualityScore);
+
+    void clearQualityScores(@Param("testRunId") Long testRunId);
 
     TestResult findById(@Param("id") Long id);
 
     List<TestResult> findByTestRunId(@Param("testRunId") Long testRunId);
+
+    TestResultBody findBody(@Param("testResultId") Long testResultId);
+
+    List<TestResultBody> findBodiesByTestRunId(@Param("testRunId") Long testRunId);
+
+    QualityStats findQualityStats(@Param("testRunId") Long testRunId);
+
+    // over the successful results of the 20 latest matching runs; null when there are none
+    Double averageCompletionTokens(@Param("promptVersionId") Long promptVersionId,
+            @Param("aiProvider") String aiProvider,
+            @Param("modelName") String modelName);
+
+    // rows are fetched as the cursor advances; must be read inside a transaction
+    Cursor<ResultExportRow> streamForExport(@Param("filter") ResultExportFilter filter);
 }
@@ -1,6 +1,7 @@
 package com.promptframework.mapper;
 
 import com.promptframework.model.entity.TestRun;
+import com.promptframework.model.entity.TestRunSummary;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import java.util.List;
@@ -14,6 +15,31 @@ public interface TestRunMapper {
 
     List<TestRun> findByPromptVersionId(@Param("promptVersionId") Long promptVersionId);
 
+    // keyset page, newest first; beforeId null for the first page
+    List<TestRunSummary> findSummariesByPromptVersionId(@Param("promptVersionId") Long promptVersionId,
+            @Param("beforeId") Long beforeId,
+            @Param("limit") int limit);
+
+    List<TestRunSummary> findSummariesByMatrixRunId(@Param("matrixRunId") Long matrixRunId);
+
+    TestRun findReusable(@Param("promptVersionId") Long promptVersionId,
+            @Param("aiProvider") String aiProvider,
+            @Param("modelName") String modelName,
+            @Param("inputsHash") String inputsHash,
+            @Param("mock") boolean mock);
+
     void updateCompletion(@Param("id") Long id,
             @Param("status") String status);
+
+    // stopReason and the estimate are null when the run took every input
+    void recordSampling(@Param("id") Long id,
+            @Param("stopReason") String stopReason,
+            @Param("stopSamples") Long stopSamples,
+            @Param("stopQualityMean") Double stopQualityMean,
+            @Param("stopQualityHalfWidth") Double stopQualityHalfWidth,
+            @Param("skippedInputs") int skippedInputs);
+
+    void recordProgress(@Param("id") Long id,
+            @Param("completed") int completed,
+            @Param("failed") int failed);
 }
@@ -0,0 +1,22 @@
+package com.promptframework.mapper;
+
+import com.promptframework.model.entity.TestRunMetrics;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import java.util.List;
+
+@Mapper
+public interface TestRunMetricsMapper {
+
+    // adds the delta to the run's row, creating it on first use
+    void merge(TestRunMetrics delta);
+
+    void recordHedging(@Param("testRunId") Long testRunId,
+            @Param("hedged") int hedged,
+            @Param("won") int won,
+            @Param("savedMs") long savedMs);
+
+    TestRunMetrics findByTestRunId(@Param("testRunId") Long testRunId);
+
+    List<TestRunMetrics> findByPromptVersionId(@Param("promptVersionId") Long promptVersionId);
+}
@@ -0,0 +1,67 @@
+package com.promptframework.mapper.handler;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.postgresql.util.PGobject;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Maps a Java value to a PostgreSQL JSONB column through Jackson.
+ * Subclasses pin the Java type.
+ */
+public abstract class JsonbTypeHandler<T> extends BaseTypeHandler<T> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final TypeReference<T> type;
+
+    protected JsonbTypeHandler(TypeReference<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException {
+        PGobject json = new PGobject();
+        json.setType("jsonb");
+        try {
+            json.setValue(MAPPER.writeValueAsString(parameter));
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Could not serialize JSONB value", e);
+        }
+        ps.setObject(i, json);
+    }
+
+    @Override
+    public T getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return parse(rs.getString(columnName));
+    }
+
+    @Override
+    public T getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return parse(rs.getString(columnIndex));
+    }
+
+    @Override
+    public T getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return parse(cs.getString(columnIndex));
+    }
+
+    private T parse(String json) throws SQLException {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Could not parse JSONB value", e);
+        }
+    }
+}
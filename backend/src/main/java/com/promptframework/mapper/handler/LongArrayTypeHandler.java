@@ -0,0 +1,52 @@
+package com.promptframework.mapper.handler;
+
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Maps {@code long[]} to a PostgreSQL BIGINT[] column.
+ */
+public class LongArrayTypeHandler extends BaseTypeHandler<long[]> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, long[] parameter, JdbcType jdbcType) throws SQLException {
+        Long[] boxed = new Long[parameter.length];
+        for (int j = 0; j < parameter.length; j++) {
+            boxed[j] = parameter[j];
+        }
+        ps.setArray(i, ps.getConnection().createArrayOf("bigint", boxed));
+    }
+
+    @Override
+    public long[] getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return toLongs(rs.getArray(columnName));
+    }
+
+    @Override
+    public long[] getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return toLongs(rs.getArray(columnIndex));
+    }
+
+    @Override
+    public long[] getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return toLongs(cs.getArray(columnIndex));
+    }
+
+    private long[] toLongs(Array array) throws SQLException {
+        if (array == null) {
+            return null;
+        }
+        Object[] values = (Object[]) array.getArray();
+        long[] result = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i] == null ? 0 : ((Number) values[i]).longValue();
+        }
+        return result;
+    }
+}
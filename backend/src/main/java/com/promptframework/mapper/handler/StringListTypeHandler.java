@@ -0,0 +1,13 @@
+package com.promptframework.mapper.handler;
+
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+public class StringListTypeHandler extends JsonbTypeHandler<List<String>> {
+
+    public StringListTypeHandler() {
+        super(new TypeReference<>() {
+        });
+    }
+}
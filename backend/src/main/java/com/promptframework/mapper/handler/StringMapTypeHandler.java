@@ -0,0 +1,13 @@
+package com.promptframework.mapper.handler;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+public class StringMapTypeHandler extends JsonbTypeHandler<Map<String, String>> {
+
+    public StringMapTypeHandler() {
+        super(new TypeReference<>() {
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.promptframework.metrics;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.promptframework.service.AIExecutionService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Meters for model and judge calls. Every meter is tagged with provider and
+ * model; calls also carry the mode (real, cached or mock) and outcome.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExecutionMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public void recordExecution(String provider, String model, long elapsedNanos, AIExecutionService.AIResponse response) {
+        String mode = response.isMock() ? "mock" : response.isCached() ? "cached" : "real";
+        String outcome = response.isFailed() ? "error" : "success";
+
+        Timer.builder("llm.request")
+                .description("Prompt executions, end to end")
+                .tags("provider", tag(provider), "model", tag(model), "mode", mode, "outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (response.getTimeToFirstTokenMs() != null && "real".equals(mode)) {
+            Timer.builder("llm.ttft")
+                    .description("Time to the first streamed token")
+                    .tags("provider", tag(provider), "model", tag(model))
+                    .register(meterRegistry)
+                    .record(response.getTimeToFirstTokenMs(), TimeUnit.MILLISECONDS);
+        }
+        // split into prompt and completion; summing over type gives the billed total
+        if (response.getPromptTokens() != null) {
+            Counter.builder("llm.tokens")
+                    .tags("provider", tag(provider), "model", tag(model), "mode", mode, "type", "prompt")
+                    .register(meterRegistry)
+                    .increment(response.getPromptTokens());
+        }
+        if (response.getCompletionTokens() != null) {
+            Counter.builder("llm.tokens")
+                    .tags("provider", tag(provider), "model", tag(model), "mode", mode, "type", "completion")
+                    .register(meterRegistry)
+                    .increment(response.getCompletionTokens());
+        }
+        if (response.getCostUsd() != null) {
+            Counter.builder("llm.cost")
+                    .baseUnit("usd")
+                    .tags("provider", tag(provider), "model", tag(model), "mode", mode)
+                    .register(meterRegistry)
+                    .increment(response.getCostUsd());
+        }
+    }
+
+    public void recordExecutionFailure(String provider, String model, long elapsedNanos) {
+        Timer.builder("llm.request")
+                .tags("provider", tag(provider), "model", tag(model), "mode", "real", "outcome", "exception")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // status 0 for errors without an HTTP status, e.g. timeouts
+    public void recordRetry(String provider, String model, int statusCode) {
+        meterRegistry.counter("llm.retries", "provider", tag(provider), "model", tag(model),
+                "status", String.valueOf(statusCode)).increment();
+    }
+
+    public void recordHedge(String provider, String model, boolean won) {
+        meterRegistry.counter("llm.hedges", "provider", tag(provider), "model", tag(model),
+                "won", String.valueOf(won)).increment();
+    }
+
+    /**
+     * Times one judge call.
+     *
+     * @param kind "batch" or "single"
+     */
+    public <T> T timeJudge(String provider, String model, String kind, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder("llm.judge")
+                    .description("Judge model calls")
+                    .tags("provider", tag(provider), "model", tag(model), "kind", kind, "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // batched answers that skipped an item, which then costs a single call
+    public void recordJudgeFallback(String provider, String model) {
+        meterRegistry.counter("llm.judge.fallbacks", "provider", tag(provider), "model", tag(model)).increment();
+    }
+
+    public void gaugeJudgeBacklog(Collection<?> queue) {
+        Gauge.builder("llm.judge.queue.size", queue, Collection::size)
+                .description("Results waiting to be graded")
+                .register(meterRegistry);
+    }
+
+    private static String tag(String value) {
+        return value == null || value.isBlank() ? "unknown" : value;
+    }
+}
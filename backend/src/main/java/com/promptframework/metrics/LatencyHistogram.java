@@ -0,0 +1,114 @@
+package com.promptframework.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Log-bucketed latency histogram. Bucket {@code i} counts values in
+ * (GAMMA^(i-1), GAMMA^i] milliseconds, so any percentile read from it is
+ * within about 5% of the true value. Two histograms merge by adding their
+ * counts, which lets run-level histograms be combined without the samples.
+ * <p>
+ * The bucket array is stored as-is in {@code test_run_metrics.latency_buckets};
+ * trailing empty buckets are dropped, so arrays of different lengths are
+ * compatible.
+ */
+public final class LatencyHistogram {
+
+    private static final double GAMMA = 1.1;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    // GAMMA^170 is roughly 3.5 hours; slower values share the last bucket
+    private static final int MAX_INDEX = 170;
+
+    private long[] counts;
+
+    public LatencyHistogram() {
+        this.counts = new long[0];
+    }
+
+    private LatencyHistogram(long[] counts) {
+        this.counts = counts;
+    }
+
+    public static LatencyHistogram of(long[] buckets) {
+        return new LatencyHistogram(buckets == null ? new long[0] : buckets.clone());
+    }
+
+    public void record(long valueMs) {
+        int index = indexOf(valueMs);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, index + 1);
+        }
+        counts[index]++;
+    }
+
+    public void merge(LatencyHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * Halves every count, so older samples weigh less than new ones when the
+     * histogram tracks a moving distribution.
+     */
+    public void decay() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] /= 2;
+        }
+    }
+
+    public long count() {
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.99 for p99
+     * @return the estimated value in milliseconds, or null when empty
+     */
+    public Long percentile(double quantile) {
+        long total = count();
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(counts.length - 1);
+    }
+
+    public long[] toArray() {
+        int length = counts.length;
+        while (length > 0 && counts[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(counts, length);
+    }
+
+    private static int indexOf(long valueMs) {
+        if (valueMs <= 1) {
+            return 0;
+        }
+        return (int) Math.min(MAX_INDEX, Math.ceil(Math.log(valueMs) / LOG_GAMMA));
+    }
+
+    // midpoint of the bucket range, which halves the worst-case relative error
+    private static long valueOf(int index) {
+        if (index == 0) {
+            return 1;
+        }
+        return Math.round(2 * Math.pow(GAMMA, index) / (GAMMA + 1));
+    }
+}
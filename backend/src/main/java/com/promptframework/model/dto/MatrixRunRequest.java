@@ -0,0 +1,41 @@
+package com.promptframework.model.dto;
+
+import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class MatrixRunRequest {
+
+    @NotEmpty(message = "At least one prompt version ID is required")
+    private List<Long> promptVersionIds;
+
+    @NotEmpty(message = "At least one model is required")
+    @Valid
+    private List<ModelTarget> models;
+
+    // exactly one of these, as for a single test run
+    private List<Map<String, String>> testInputs;
+
+    private Long datasetId;
+
+    private boolean bypassCache;
+
+    private String judgeModel;
+
+    // provider the X-API-KEY header was issued for; needed when the models span several
+    private String apiKeyProvider;
+
+    @Data
+    public static class ModelTarget {
+
+        @NotBlank(message = "AI provider is required")
+        private String aiProvider;
+
+        @NotBlank(message = "Model name is required")
+        private String modelName;
+    }
+}
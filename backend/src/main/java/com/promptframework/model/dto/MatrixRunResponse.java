@@ -0,0 +1,17 @@
+package com.promptframework.model.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class MatrixRunResponse {
+
+    private Long id;
+    private Long datasetId;
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    // one run per version/model pair, with progress and stored metrics but no results
+    private List<TestRunResponse> cells;
+}
@@ -0,0 +1,12 @@
+package com.promptframework.model.dto;
+
+import com.promptframework.model.entity.PromptSummary;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class PromptPage {
+
+    private List<PromptSummary> items;
+    private Long nextCursor;  // pass as "before" to fetch the next page; null on the last page
+}
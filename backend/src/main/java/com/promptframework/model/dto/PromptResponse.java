@@ -3,7 +3,7 @@ package com.promptframework.model.dto;
 import lombok.Data;
 import java.time.LocalDateTime;
 import java.util.List;
-import com.promptframework.model.entity.PromptVersion;
+import com.promptframework.model.entity.PromptVersionHeader;
 
 @Data
 public class PromptResponse {
@@ -13,5 +13,5 @@ public class PromptResponse {
     private String description;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
-    private List<PromptVersion> versions;
+    private List<PromptVersionHeader> versions;  // oldest first; content is fetched per version
 }
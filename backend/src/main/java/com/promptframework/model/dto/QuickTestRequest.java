@@ -20,4 +20,6 @@ public class QuickTestRequest {
 
     @NotEmpty(message = "At least one test input is required")
     private List<Map<String, String>> testInputs;
+
+    private boolean bypassCache;  // skip the response cache for this request
 }
@@ -18,6 +18,7 @@ public class QuickTestResponse {
     public static class MetricsSummary {
 
         private Double averageResponseTimeMs;
+        private Double averageTimeToFirstTokenMs;
         private Double averageQualityScore;
         private Integer totalTokens;
         private Double totalCostUsd;
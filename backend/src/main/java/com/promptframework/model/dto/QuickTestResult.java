@@ -9,7 +9,9 @@ public class QuickTestResult {
     private Map<String, String> inputVariables;
     private String aiResponse;
     private Integer responseTimeMs;
+    private Integer timeToFirstTokenMs;
     private Integer tokenCount;
     private Double costUsd;
     private Double qualityScore;
+    private Boolean cached;
 }
@@ -0,0 +1,18 @@
+package com.promptframework.model.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Narrows a results export; unset fields do not filter. The date range
+ * applies to when the run started, from inclusive and to exclusive.
+ */
+@Data
+public class ResultExportFilter {
+
+    private Long testRunId;
+    private Long promptVersionId;
+    private String modelName;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
@@ -0,0 +1,26 @@
+package com.promptframework.model.dto;
+
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Projected size and cost of a run, worked out without calling a model.
+ * Prompt tokens are counted locally per input; completion tokens are the
+ * average of recent runs of the same version and model, or
+ * ai.rate-limits.expected-output-tokens when there are none.
+ */
+@Data
+public class RunEstimate {
+
+    private Integer inputs;
+    private Long promptTokens;
+    private Integer maxPromptTokens;  // largest single prompt
+    private Integer completionTokensPerInput;
+    private boolean completionTokensFromHistory;
+    private Long projectedCompletionTokens;
+    private Long projectedTotalTokens;
+    private Double projectedCostUsd;  // leaves out inputs that would overflow, as those are never sent
+    private Integer contextWindow;  // null when not configured for the model
+    private Integer overflowingInputs;
+    private List<Integer> overflowingIndexes;  // the first 100
+}
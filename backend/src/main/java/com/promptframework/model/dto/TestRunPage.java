@@ -0,0 +1,11 @@
+package com.promptframework.model.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class TestRunPage {
+
+    private List<TestRunResponse> items;
+    private Long nextCursor;  // pass as "before" to fetch the next page; null on the last page
+}
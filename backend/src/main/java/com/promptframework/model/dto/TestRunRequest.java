@@ -1,9 +1,12 @@
 package com.promptframework.model.dto;
 
 import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +22,40 @@ public class TestRunRequest {
     @NotBlank(message = "Model name is required")
     private String modelName;
 
-    @NotEmpty(message = "At least one test input is required")
-    private List<Map<String, String>> testInputs;  // List of variable sets
+    // exactly one of these: variable sets given inline, or a dataset to run every row of
+    private List<Map<String, String>> testInputs;
+
+    private Long datasetId;
+
+    private boolean bypassCache;  // skip the response cache for this request
+
+    private String judgeModel;  // defaults to ai.judge.model
+
+    @Valid
+    private Sampling sampling;  // null runs every input
+
+    /**
+     * Opt-in sequential sampling: inputs run in shuffled order and the run
+     * stops once the quality estimate meets at least one of the targets.
+     */
+    @Data
+    public static class Sampling {
+
+        // stop once the confidence interval of the mean quality score is at most this wide
+        @Positive(message = "Interval width must be positive")
+        private Double maxIntervalWidth;
+
+        @DecimalMin(value = "0.5", message = "Confidence must be at least 0.5")
+        @DecimalMax(value = "0.999", message = "Confidence must be at most 0.999")
+        private Double confidence;  // defaults to ai.sampling.confidence
+
+        // stop once the mean quality differs significantly from this run's
+        private Long baselineRunId;
+
+        @DecimalMin(value = "0.0001", message = "Significance must be at least 0.0001")
+        @DecimalMax(value = "0.2", message = "Significance must be at most 0.2")
+        private Double significance;  // defaults to ai.sampling.significance
+
+        private Long seed;  // shuffle seed, for a reproducible order; random when null
+    }
 }
@@ -10,20 +10,58 @@ public class TestRunResponse {
 
     private Long id;
     private Long promptVersionId;
+    private Long datasetId;
+    private Long matrixRunId;
     private String aiProvider;
     private String modelName;
     private LocalDateTime startedAt;
     private LocalDateTime completedAt;
     private String status;
+    private Boolean mock;  // answered with mock responses rather than by the model
     private List<TestResult> results;
     private MetricsSummary metrics;
+    private Progress progress;
+    private Sampling sampling;  // only on sequentially sampled runs
 
     @Data
     public static class MetricsSummary {
 
+        private Integer resultCount;
+        private Integer errorCount;
         private Double averageResponseTimeMs;
+        // from the run's latency histogram, within ~5% of the exact value
+        private Long p50ResponseTimeMs;
+        private Long p90ResponseTimeMs;
+        private Long p99ResponseTimeMs;
+        private Double averageTimeToFirstTokenMs;
         private Double averageQualityScore;
         private Integer totalTokens;
         private Double totalCostUsd;
+        // duplicate calls sent for slow requests, how many of them answered first,
+        // and a lower bound on the time they saved in total
+        private Integer hedgedRequests;
+        private Integer hedgeWins;
+        private Long hedgeSavedMs;
+        private Double hedgeRate;
+    }
+
+    @Data
+    public static class Progress {
+
+        private Integer totalInputs;
+        private Integer completedInputs;
+        private Integer failedInputs;
+    }
+
+    @Data
+    public static class Sampling {
+
+        private Long seed;
+        private Long baselineRunId;
+        private String stopReason;  // INTERVAL_WIDTH or SIGNIFICANT; null when every input ran
+        private Integer scoresAtStop;
+        private Double qualityMean;  // the estimate the run stopped on
+        private Double intervalHalfWidth;
+        private Integer skippedInputs;  // model calls saved
     }
 }
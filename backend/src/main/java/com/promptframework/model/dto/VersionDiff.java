@@ -0,0 +1,26 @@
+package com.promptframework.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+public class VersionDiff {
+
+    private Long fromVersionId;
+    private Long toVersionId;
+    private boolean identical;  // same content hash; lines is empty
+    private int added;
+    private int removed;
+    private List<Line> lines;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+
+        private String type;  // EQUAL, ADDED or REMOVED
+        private String text;
+    }
+}
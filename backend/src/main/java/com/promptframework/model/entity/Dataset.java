@@ -0,0 +1,22 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A named, immutable set of test inputs imported from CSV or JSONL. Rows
+ * live in dataset_rows and are read in pages.
+ */
+@Data
+public class Dataset {
+
+    private Long id;
+    private String name;
+    private String description;
+    private String status;  // IMPORTING, then READY; only READY datasets can be run
+    private List<String> columns;  // variables present in every row
+    private Integer rowCount;
+    private String contentHash;  // digest of the rows, same as ContentHash.ofInputs over them
+    private LocalDateTime createdAt;
+}
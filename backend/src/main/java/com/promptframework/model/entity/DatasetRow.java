@@ -0,0 +1,12 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+import java.util.Map;
+
+@Data
+public class DatasetRow {
+
+    private Long datasetId;
+    private Integer rowIndex;  // 0-based position in the uploaded file
+    private Map<String, String> variables;
+}
@@ -0,0 +1,19 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Several prompt versions against several models over one set of inputs,
+ * executed as one job. Each version/model cell is recorded as a test run
+ * pointing back here.
+ */
+@Data
+public class MatrixRun {
+
+    private Long id;
+    private Long datasetId;  // null when the inputs were posted inline
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -9,6 +9,7 @@ public class Prompt {
     private Long id;
     private String name;
     private String description;
+    private Integer lastVersionNumber;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
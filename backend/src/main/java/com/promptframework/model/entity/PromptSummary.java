@@ -0,0 +1,15 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * A prompt as shown in the library listing: its own columns plus the number
+ * of versions, without loading any of them.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PromptSummary extends Prompt {
+
+    private Integer versionCount;
+}
@@ -2,7 +2,7 @@ package com.promptframework.model.entity;
 
 import lombok.Data;
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.List;
 
 @Data
 public class PromptVersion {
@@ -10,7 +10,8 @@ public class PromptVersion {
     private Long id;
     private Long promptId;
     private Integer versionNumber;
-    private String content;  // prompt text
-    private Map<String, String> variables; //for filled in
+    private String content;  // prompt text, stored once per hash in prompt_contents
+    private String contentHash;  // sha-256 hex of content
+    private List<String> variables; // names referenced by the template
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,21 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A prompt version without its content. The length and hash let clients
+ * tell versions apart and detect edits without downloading the text.
+ */
+@Data
+public class PromptVersionHeader {
+
+    private Long id;
+    private Long promptId;
+    private Integer versionNumber;
+    private List<String> variables;
+    private Integer contentLength;  // characters
+    private String contentHash;     // sha-256 hex; equal hashes mean equal content
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,14 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+
+/**
+ * Count, mean and sample variance of a run's quality scores.
+ */
+@Data
+public class QualityStats {
+
+    private Integer count;
+    private Double mean;
+    private Double variance;  // null with fewer than two scores
+}
@@ -0,0 +1,19 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * A result as written by the export: its own columns, the run and version
+ * it belongs to, and the full response where the stored one is a preview.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ResultExportRow extends TestResult {
+
+    private Long promptVersionId;
+    private Integer versionNumber;
+    private String aiProvider;
+    private String modelName;
+    private String fullResponse;  // null unless the response is longer than the preview
+}
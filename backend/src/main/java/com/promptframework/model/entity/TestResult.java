@@ -11,11 +11,20 @@ public class TestResult {
 
     private Long id;
     private Long testRunId;
+    private Integer inputIndex;  // position in the request or dataset
     private Map<String, String> inputVariables;
-    private String aiResponse;
+    private String servedBy;  // provider:model that answered, when the run was routed to a group
+    private String aiResponse;  // read back as a preview when responseTruncated
+    private Integer responseLength;  // characters in the full response
+    private Boolean responseTruncated;
     private Integer responseTimeMs;
-    private Integer tokenCount;
+    private Integer timeToFirstTokenMs;
+    private Integer promptTokens;
+    private Integer completionTokens;
+    private Integer tokenCount;  // prompt plus completion
     private BigDecimal costUsd;
     private Double qualityScore;
+    private String status;  // SUCCESS, or FAILED when the model call kept failing
+    private String errorMessage;
     private LocalDateTime createdAt;
 }
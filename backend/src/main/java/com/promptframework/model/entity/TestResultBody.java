@@ -0,0 +1,14 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+
+/**
+ * Full text of a response too long to keep inline; test_results holds its
+ * preview and length.
+ */
+@Data
+public class TestResultBody {
+
+    private Long testResultId;
+    private String body;
+}
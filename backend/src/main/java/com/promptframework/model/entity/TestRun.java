@@ -8,9 +8,25 @@ public class TestRun {
 
     private Long id;
     private Long promptVersionId;
+    private Long datasetId;  // null when the inputs were posted inline
+    private Long matrixRunId;  // set when the run is one cell of a matrix run
     private String aiProvider;
     private String modelName;
     private LocalDateTime startedAt;
     private LocalDateTime completedAt;
     private String status;
+    private Integer totalInputs;
+    private Integer completedInputs;
+    private Integer failedInputs;
+    private String inputsHash;
+    private Boolean mock;  // answered with mock responses rather than by the model
+    // sequential sampling: inputs in shuffled order until the quality estimate settles
+    private Boolean sequential;
+    private Long samplingSeed;
+    private Long baselineRunId;
+    private String stopReason;  // null when every input ran
+    private Integer stopSamples;  // quality scores seen when the run stopped
+    private Double stopQualityMean;
+    private Double stopQualityHalfWidth;
+    private Integer skippedInputs;  // model calls saved by stopping early
 }
@@ -0,0 +1,31 @@
+package com.promptframework.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+/**
+ * Running aggregates of one test run, maintained incrementally as results
+ * are written and scored. Every field is a sum or a count so two rows can
+ * be merged by addition.
+ */
+@Data
+public class TestRunMetrics {
+
+    private Long testRunId;
+    private Integer resultCount = 0;
+    private Integer errorCount = 0;
+    private Long responseTimeSumMs = 0L;
+    private Long ttftSumMs = 0L;
+    private Integer ttftCount = 0;
+    private Long totalTokens = 0L;
+    private BigDecimal totalCostUsd = BigDecimal.ZERO;
+    private Double qualitySum = 0.0;
+    private Integer qualityCount = 0;
+    private long[] latencyBuckets = new long[0];
+    private Integer hedgedRequests = 0;
+    private Integer hedgeWins = 0;
+    private Long hedgeSavedMs = 0L;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.promptframework.model.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * A test run together with its stored metrics row, which is null until the
+ * first results are written.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class TestRunSummary extends TestRun {
+
+    private TestRunMetrics metrics;
+}
@@ -0,0 +1,52 @@
+package com.promptframework.provider;
+
+import org.springframework.stereotype.Component;
+
+import com.promptframework.config.ProviderProperties;
+
+import dev.langchain4j.model.anthropic.AnthropicChatModel;
+import dev.langchain4j.model.anthropic.AnthropicStreamingChatModel;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+
+@Component
+public class AnthropicModelProvider implements ModelProvider {
+
+    public static final String PROVIDER = "anthropic";
+
+    private final ProviderProperties.Provider properties;
+
+    public AnthropicModelProvider(ProviderProperties providerProperties) {
+        this.properties = providerProperties.getAnthropic();
+    }
+
+    @Override
+    public String name() {
+        return PROVIDER;
+    }
+
+    @Override
+    public String defaultApiKey() {
+        return properties.getApiKey() == null || properties.getApiKey().isBlank() ? null : properties.getApiKey();
+    }
+
+    @Override
+    public ChatLanguageModel chatModel(String modelName, String apiKey) {
+        return AnthropicChatModel.builder()
+                .apiKey(apiKey)
+                .modelName(modelName)
+                .baseUrl(properties.getBaseUrl())
+                .timeout(properties.getTimeout())
+                .build();
+    }
+
+    @Override
+    public StreamingChatLanguageModel streamingChatModel(String modelName, String apiKey) {
+        return AnthropicStreamingChatModel.builder()
+                .apiKey(apiKey)
+                .modelName(modelName)
+                .baseUrl(properties.getBaseUrl())
+                .timeout(properties.getTimeout())
+                .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.promptframework.provider;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+
+/**
+ * Builds LangChain4j clients for one provider, named by the aiProvider
+ * value of a request. Clients are pooled per provider by the
+ * ChatModelRegistry, so building one may be expensive.
+ */
+public interface ModelProvider {
+
+    String name();
+
+    /**
+     * The configured key, used for calls that bring none; null when there
+     * is none.
+     */
+    String defaultApiKey();
+
+    default boolean requiresApiKey() {
+        return true;
+    }
+
+    ChatLanguageModel chatModel(String modelName, String apiKey);
+
+    StreamingChatLanguageModel streamingChatModel(String modelName, String apiKey);
+}
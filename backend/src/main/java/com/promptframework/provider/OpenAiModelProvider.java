@@ -0,0 +1,52 @@
+package com.promptframework.provider;
+
+import org.springframework.stereotype.Component;
+
+import com.promptframework.config.ProviderProperties;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+
+@Component
+public class OpenAiModelProvider implements ModelProvider {
+
+    public static final String PROVIDER = "openai";
+
+    private final ProviderProperties.Provider properties;
+
+    public OpenAiModelProvider(ProviderProperties providerProperties) {
+        this.properties = providerProperties.getOpenai();
+    }
+
+    @Override
+    public String name() {
+        return PROVIDER;
+    }
+
+    @Override
+    public String defaultApiKey() {
+        return properties.getApiKey() == null || properties.getApiKey().isBlank() ? null : properties.getApiKey();
+    }
+
+    @Override
+    public ChatLanguageModel chatModel(String modelName, String apiKey) {
+        return OpenAiChatModel.builder()
+                .apiKey(apiKey)
+                .modelName(modelName)
+                .baseUrl(properties.getBaseUrl())
+                .timeout(properties.getTimeout())
+                .build();
+    }
+
+    @Override
+    public StreamingChatLanguageModel streamingChatModel(String modelName, String apiKey) {
+        return OpenAiStreamingChatModel.builder()
+                .apiKey(apiKey)
+                .modelName(modelName)
+                .baseUrl(properties.getBaseUrl())
+                .timeout(properties.getTimeout())
+                .build();
+    }
+}
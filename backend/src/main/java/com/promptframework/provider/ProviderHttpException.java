@@ -0,0 +1,65 @@
+package com.promptframework.provider;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import dev.ai4j.openai4j.OpenAiHttpException;
+import dev.langchain4j.model.anthropic.internal.client.AnthropicHttpException;
+import lombok.Getter;
+
+/**
+ * An HTTP-level failure reported by a model provider, keeping the status
+ * and any Retry-After hint so callers can back off.
+ */
+@Getter
+public class ProviderHttpException extends RuntimeException {
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public ProviderHttpException(int statusCode, String message, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public boolean isRateLimited() {
+        return statusCode == 429;
+    }
+
+    /**
+     * The HTTP failure behind a model call error, from this type or from a
+     * provider client's own exception, or null if there is none.
+     */
+    public static ProviderHttpException from(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ProviderHttpException http) {
+                return http;
+            }
+            if (t instanceof OpenAiHttpException openAi) {
+                return new ProviderHttpException(openAi.code(), openAi.getMessage(), null);
+            }
+            if (t instanceof AnthropicHttpException anthropic) {
+                return new ProviderHttpException(anthropic.statusCode(), anthropic.getMessage(), null);
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    // rate limits, server errors and transport failures are worth another attempt
+    public static boolean isRetryable(Throwable error) {
+        ProviderHttpException http = from(error);
+        if (http != null) {
+            return http.isRateLimited() || http.getStatusCode() >= 500;
+        }
+        for (Throwable t = error; t != null && t.getCause() != t; t = t.getCause()) {
+            if (t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
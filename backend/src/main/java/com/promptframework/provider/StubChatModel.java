@@ -0,0 +1,31 @@
+package com.promptframework.provider;
+
+import java.util.List;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * Blocking LangChain4j view of the {@link StubLanguageModel}.
+ */
+public class StubChatModel implements ChatLanguageModel {
+
+    private final StubLanguageModel stub;
+
+    public StubChatModel(StubLanguageModel stub) {
+        this.stub = stub;
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        String prompt = StubStreamingChatModel.promptOf(messages);
+        int[] outputTokens = new int[1];
+        String text = stub.generate(prompt, token -> outputTokens[0]++);
+        return Response.from(AiMessage.from(text),
+                new TokenUsage(prompt.length() / 4, outputTokens[0]), FinishReason.STOP);
+    }
+}
@@ -0,0 +1,125 @@
+package com.promptframework.provider;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import com.promptframework.config.StubProviderProperties;
+
+/**
+ * A local stand-in for a model provider. Calls really take time: the first
+ * token waits for a latency drawn from the configured distribution, and the
+ * rest stream at the configured token rate, so concurrency limits, rate
+ * limiting and persistence behave as they would against a real API.
+ * Configured fractions of calls fail with 429 or 503.
+ * <p>
+ * With a seed set, the n-th call always draws the same latency, error and
+ * text. Judge prompts get parseable scores back.
+ */
+@Component
+public class StubLanguageModel {
+
+    public static final String PROVIDER = "stub";
+
+    private static final Pattern JUDGE_ITEM = Pattern.compile("(?m)^### Item (\\d+)");
+    private static final String[] WORDS = {
+            "the", "model", "returns", "a", "plausible", "answer", "for", "this", "prompt", "with",
+            "some", "detail", "and", "context", "about", "each", "step", "in", "order"
+    };
+
+    private final StubProviderProperties properties;
+    private final long seed;
+    private final AtomicLong calls = new AtomicLong();
+
+    public StubLanguageModel(StubProviderProperties properties) {
+        this.properties = properties;
+        this.seed = properties.getSeed() != null ? properties.getSeed() : System.nanoTime();
+    }
+
+    /**
+     * Generates a response, handing each token to the listener as it is
+     * "streamed". Blocks for the simulated duration of the call.
+     *
+     * @throws ProviderHttpException for an injected 429 or 503
+     */
+    public String generate(String prompt, Consumer<String> onToken) {
+        SplittableRandom random = new SplittableRandom(seed + calls.getAndIncrement() * 0x9E3779B97F4A7C15L);
+        long start = System.nanoTime();
+
+        long firstTokenNanos = TimeUnit.MICROSECONDS.toNanos((long) (firstTokenMs(random) * 1000));
+        double roll = random.nextDouble();
+        if (roll < properties.getRateLimitErrorRate()) {
+            // rejections come back quickly, like a real gateway
+            sleepUntil(start + firstTokenNanos / 10);
+            throw new ProviderHttpException(429, "Stub rate limit exceeded", properties.getRetryAfter());
+        }
+        if (roll < properties.getRateLimitErrorRate() + properties.getServerErrorRate()) {
+            sleepUntil(start + firstTokenNanos);
+            throw new ProviderHttpException(503, "Stub upstream unavailable", null);
+        }
+
+        String[] tokens = response(prompt, random);
+        long tokenIntervalNanos = properties.getTokensPerSecond() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / properties.getTokensPerSecond())
+                : 0;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tokens.length; i++) {
+            sleepUntil(start + firstTokenNanos + i * tokenIntervalNanos);
+            text.append(tokens[i]);
+            onToken.accept(tokens[i]);
+        }
+        return text.toString();
+    }
+
+    private double firstTokenMs(SplittableRandom random) {
+        StubProviderProperties.Latency latency = properties.getFirstToken();
+        double value = switch (latency.getDistribution()) {
+            case FIXED -> latency.getMeanMs();
+            case NORMAL -> latency.getMeanMs() + random.nextGaussian() * latency.getStddevMs();
+            case LONG_TAIL -> latency.getMeanMs() * Math.exp(random.nextGaussian() * latency.getTailSigma());
+        };
+        return Math.max(0, value);
+    }
+
+    private String[] response(String prompt, SplittableRandom random) {
+        Matcher items = JUDGE_ITEM.matcher(prompt);
+        if (items.find()) {
+            StringBuilder scores = new StringBuilder();
+            do {
+                scores.append(items.group(1)).append(": ").append(score(random)).append('\n');
+            } while (items.find());
+            return new String[] {scores.toString()};
+        }
+        if (prompt.startsWith("You are an AI Quality Judge")) {
+            return new String[] {score(random)};
+        }
+
+        String[] tokens = new String[Math.max(1, properties.getResponseTokens())];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = (i == 0 ? "" : " ") + WORDS[random.nextInt(WORDS.length)];
+        }
+        return tokens;
+    }
+
+    private static String score(SplittableRandom random) {
+        return String.format(Locale.ROOT, "%.2f", 0.5 + random.nextDouble() * 0.5);
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Stub call interrupted");
+            }
+        }
+    }
+}
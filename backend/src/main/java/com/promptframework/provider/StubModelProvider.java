@@ -0,0 +1,47 @@
+package com.promptframework.provider;
+
+import org.springframework.stereotype.Component;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+
+/**
+ * The local stub as a provider. It needs no key, and one pair of clients
+ * serves every model name.
+ */
+@Component
+public class StubModelProvider implements ModelProvider {
+
+    private final StubChatModel chatModel;
+    private final StubStreamingChatModel streamingChatModel;
+
+    public StubModelProvider(StubLanguageModel stubLanguageModel) {
+        this.chatModel = new StubChatModel(stubLanguageModel);
+        this.streamingChatModel = new StubStreamingChatModel(stubLanguageModel);
+    }
+
+    @Override
+    public String name() {
+        return StubLanguageModel.PROVIDER;
+    }
+
+    @Override
+    public String defaultApiKey() {
+        return null;
+    }
+
+    @Override
+    public boolean requiresApiKey() {
+        return false;
+    }
+
+    @Override
+    public ChatLanguageModel chatModel(String modelName, String apiKey) {
+        return chatModel;
+    }
+
+    @Override
+    public StreamingChatLanguageModel streamingChatModel(String modelName, String apiKey) {
+        return streamingChatModel;
+    }
+}
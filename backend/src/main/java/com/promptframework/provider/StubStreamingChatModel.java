@@ -0,0 +1,56 @@
+package com.promptframework.provider;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * Streaming LangChain4j view of the {@link StubLanguageModel}. Tokens are
+ * delivered on the calling thread, which blocks for the simulated call.
+ */
+public class StubStreamingChatModel implements StreamingChatLanguageModel {
+
+    private final StubLanguageModel stub;
+
+    public StubStreamingChatModel(StubLanguageModel stub) {
+        this.stub = stub;
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        String prompt = promptOf(messages);
+        int[] outputTokens = new int[1];
+        String text;
+        try {
+            text = stub.generate(prompt, token -> {
+                outputTokens[0]++;
+                handler.onNext(token);
+            });
+        } catch (RuntimeException e) {
+            handler.onError(e);
+            return;
+        }
+        handler.onComplete(Response.from(AiMessage.from(text),
+                new TokenUsage(prompt.length() / 4, outputTokens[0]), FinishReason.STOP));
+    }
+
+    static String promptOf(List<ChatMessage> messages) {
+        return messages.stream()
+                .map(message -> switch (message) {
+                    case UserMessage user -> user.singleText();
+                    case SystemMessage system -> system.text();
+                    case AiMessage ai -> ai.text();
+                    default -> "";
+                })
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -1,16 +1,32 @@
 package com.promptframework.service;
 
 import java.util.Map;
-import java.util.Optional;
 import java.util.Random;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.promptframework.config.ModelPricingProperties;
+import com.promptframework.config.RateLimitProperties;
+import com.promptframework.metrics.ExecutionMetrics;
+import com.promptframework.provider.ProviderHttpException;
+import com.promptframework.template.PromptTemplate;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
-import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,126 +39,379 @@ public class AIExecutionService {
     @Value("${ai.mock-mode:false}")
     private boolean globalMockMode;
 
-    private final Optional<ChatLanguageModel> globalChatModel;
+    private final ResponseCache responseCache;
+    private final ChatModelRegistry chatModelRegistry;
+    private final ModelRouter modelRouter;
+    private final ExecutionMetrics executionMetrics;
+    private final ProviderRateLimiter rateLimiter;
+    private final RateLimitProperties rateLimitProperties;
+    private final HedgingPolicy hedgingPolicy;
+    private final TokenCounter tokenCounter;
+    private final ModelPricingProperties pricing;
     private final Random random = new Random();
 
     /**
-     * Executes the prompt and then runs an automated evaluation
-     * (LLM-as-a-Judge).
+     * Executes the prompt. Real responses come back unscored; grading them
+     * is the separate {@link JudgeService} stage. Mock responses get a mock
+     * score straight away. For provider {@value ModelRouter#PROVIDER} the
+     * model names a group of equivalents, and the call goes to whichever
+     * member {@link ModelRouter} picks; the response names that member.
      */
-    public AIResponse execute(String promptContent, Map<String, String> variables,
+    public AIResponse execute(PromptTemplate template, Map<String, String> variables,
             String aiProvider, String modelName, String apiKeyOverride) {
+        return execute(template, variables, aiProvider, modelName, apiKeyOverride, new ExecutionOptions());
+    }
 
-        boolean shouldMock = globalMockMode;
-        if (apiKeyOverride != null && !apiKeyOverride.isBlank()) {
-            shouldMock = false;
-        } else if (globalChatModel.isEmpty() && (apiKeyOverride == null || apiKeyOverride.isBlank())) {
-            shouldMock = true;
+    public AIResponse execute(PromptTemplate template, Map<String, String> variables,
+            String aiProvider, String modelName, String apiKeyOverride, ExecutionOptions options) {
+
+        if (ModelRouter.PROVIDER.equals(aiProvider)) {
+            // a caller's key belongs to one provider, so routed calls use the configured keys
+            ExecutionEngine.Target target = modelRouter.choose(modelName, this::hasConfiguredKey);
+            return execute(template, variables, target.provider(), target.modelName(), null, options);
         }
+
+        long start = System.nanoTime();
         AIResponse response;
-        if (shouldMock) {
-            response = executeMock(promptContent, variables, aiProvider, modelName);
-        } else {
-            response = executeReal(promptContent, variables, aiProvider, modelName, apiKeyOverride);
+        try {
+            if (isMock(aiProvider, apiKeyOverride)) {
+                response = executeMock(template.getSource(), variables, aiProvider, modelName);
+                response.setQualityScore(mockQualityScore());
+                emit(options, response.getResponseText());
+            } else {
+                response = executeReal(template, variables, aiProvider, modelName, apiKeyOverride, options);
+            }
+        } catch (RuntimeException e) {
+            executionMetrics.recordExecutionFailure(aiProvider, modelName, System.nanoTime() - start);
+            throw e;
         }
+        executionMetrics.recordExecution(aiProvider, modelName, System.nanoTime() - start, response);
+        return response;
+    }
 
-        if (!shouldMock && response.getResponseText() != null) {
-            double qualityScore = evaluateQuality(promptContent, response.getResponseText(), apiKeyOverride);
-            response.setQualityScore(qualityScore);
-        } else {
-            // Mock scoring
-            response.setQualityScore(0.7 + (random.nextDouble() * 0.2));
+    /**
+     * Whether calls for this provider and key are answered by
+     * {@link #executeMock} instead of a model: in mock mode, or when there
+     * is no key to call it with. Providers that need no key, like the
+     * local stub, are models in this sense and never mocked.
+     */
+    public boolean isMock(String provider, String apiKeyOverride) {
+        if (chatModelRegistry.supports(provider) && !chatModelRegistry.requiresApiKey(provider)) {
+            return false;
         }
+        if (apiKeyOverride != null && !apiKeyOverride.isBlank()) {
+            return false;
+        }
+        return globalMockMode || chatModelRegistry.apiKeyFor(provider, null) == null;
+    }
 
-        return response;
+    /**
+     * Whether calls to this target would be answered by mocks; for a routed
+     * group, whether every member's would, since routing prefers members
+     * with a configured key and never forwards the caller's.
+     */
+    public boolean isMockTarget(String provider, String modelName, String apiKeyOverride) {
+        if (ModelRouter.PROVIDER.equals(provider)) {
+            return modelRouter.members(modelName).stream().allMatch(target -> isMock(target.provider(), null));
+        }
+        return isMock(provider, apiKeyOverride);
     }
 
-    private AIResponse executeReal(String promptContent, Map<String, String> variables,
-            String provider, String modelName, String apiKeyOverride) {
+    /**
+     * Rejects a provider that is not registered, or a routing group that is
+     * not configured, before any work is queued for it.
+     */
+    public void validateTarget(String provider, String modelName) {
+        if (ModelRouter.PROVIDER.equals(provider)) {
+            modelRouter.members(modelName);
+        } else if (!chatModelRegistry.supports(provider)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown AI provider: " + provider
+                    + "; expected " + ModelRouter.PROVIDER + " or one of " + chatModelRegistry.providers());
+        }
+    }
 
-        String finalPrompt = resolveVariables(promptContent, variables);
-        ChatLanguageModel modelToUse = buildModel(modelName, apiKeyOverride);
+    private boolean hasConfiguredKey(ExecutionEngine.Target target) {
+        return chatModelRegistry.supports(target.provider())
+                && (!chatModelRegistry.requiresApiKey(target.provider())
+                        || chatModelRegistry.apiKeyFor(target.provider(), null) != null);
+    }
 
-        long startTime = System.currentTimeMillis();
-        String responseText;
-        try {
-            responseText = modelToUse.generate(finalPrompt);
-        } catch (Exception e) {
-            log.error("AI Error", e);
-            responseText = "Error: " + e.getMessage();
+    public double mockQualityScore() {
+        return 0.7 + (random.nextDouble() * 0.2);
+    }
+
+    private AIResponse executeReal(PromptTemplate template, Map<String, String> variables,
+            String provider, String modelName, String apiKeyOverride, ExecutionOptions options) {
+
+        String finalPrompt = options.getRenderedPrompt() != null ? options.getRenderedPrompt() : template.render(variables);
+
+        boolean useCache = responseCache.isEnabled() && !options.isBypassCache();
+        String cacheKey = useCache ? responseCache.key(finalPrompt, provider, modelName) : null;
+        if (useCache) {
+            long lookupStart = System.nanoTime();
+            AIResponse cached = responseCache.get(cacheKey);
+            if (cached != null) {
+                AIResponse hit = cacheHit(cached, (int) ((System.nanoTime() - lookupStart) / 1_000_000));
+                emit(options, hit.getResponseText());
+                return hit;
+            }
+        }
+
+        ModelPricingProperties.Model pricingModel = pricing.forModel(provider, modelName);
+        int promptTokens = tokenCounter.count(provider, modelName, finalPrompt);
+        // a prompt that cannot fit fails here rather than as a paid 400 from the provider
+        if (pricingModel.getContextWindow() != null && promptTokens >= pricingModel.getContextWindow()) {
+            AIResponse overflow = new AIResponse();
+            overflow.setProvider(provider);
+            overflow.setModel(modelName);
+            overflow.setFailed(true);
+            overflow.setErrorMessage("Prompt is " + promptTokens + " tokens; " + modelName
+                    + " accepts " + pricingModel.getContextWindow());
+            overflow.setResponseTimeMs(0);
+            overflow.setPromptTokens(promptTokens);
+            overflow.setCompletionTokens(0);
+            overflow.setTokenCount(0);
+            overflow.setCostUsd(0.0);
+            return overflow;
+        }
+
+        StreamingChatLanguageModel modelToUse = buildStreamingModel(provider, modelName, apiKeyOverride);
+
+        int estimatedTokens = promptTokens + rateLimitProperties.getExpectedOutputTokens();
+        long startTime;
+        AtomicLong firstTokenAt = new AtomicLong();
+        String responseText = null;
+        int completionTokens = 0;
+        String errorMessage = null;
+        long firstAttemptAt = 0;
+        for (int attempt = 0; ; attempt++) {
+            ProviderRateLimiter.Permit permit = acquirePermit(provider, modelName, apiKeyOverride, estimatedTokens);
+            startTime = System.nanoTime();
+            if (attempt == 0) {
+                firstAttemptAt = startTime;
+            }
+            try {
+                Consumer<String> onToken = token -> {
+                    firstTokenAt.compareAndSet(0, System.nanoTime());
+                    emit(options, token);
+                };
+                HedgingPolicy.Budget hedgeBudget = options.getHedgeBudget();
+                Long hedgeDelayMs = hedgeBudget == null ? null : hedgingPolicy.hedgeDelayMs(provider, modelName);
+                Completion completion;
+                if (hedgeDelayMs == null) {
+                    completion = generate(modelToUse, finalPrompt, onToken);
+                } else {
+                    HedgedStream.Outcome outcome = new HedgedStream(modelToUse, finalPrompt, onToken).run(hedgeDelayMs,
+                            () -> reserveHedge(hedgeBudget, provider, modelName, apiKeyOverride, estimatedTokens));
+                    completion = outcome.completion();
+                    if (outcome.hedged()) {
+                        executionMetrics.recordHedge(provider, modelName, outcome.hedgeWon());
+                    }
+                    if (outcome.hedgeWon()) {
+                        hedgeBudget.recordWin(outcome.savedMs());
+                    }
+                }
+                responseText = completion.text();
+                TokenUsage usage = completion.usage();
+                completionTokens = usage != null && usage.outputTokenCount() != null
+                        ? usage.outputTokenCount() : tokenCounter.count(provider, modelName, responseText);
+                if (usage != null && usage.inputTokenCount() != null) {
+                    promptTokens = usage.inputTokenCount();
+                }
+                permit.success(promptTokens + completionTokens);
+                if (firstTokenAt.get() != 0) {
+                    hedgingPolicy.recordFirstToken(provider, modelName,
+                            TimeUnit.NANOSECONDS.toMillis(firstTokenAt.get() - startTime));
+                }
+                break;
+            } catch (Exception e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                ProviderHttpException httpError = ProviderHttpException.from(cause);
+                if (httpError != null && httpError.isRateLimited()) {
+                    permit.rateLimited(httpError.getRetryAfter());
+                } else {
+                    permit.failed();
+                }
+                // retrying after tokens went out would repeat them to the listener
+                boolean retryable = ProviderHttpException.isRetryable(cause) && firstTokenAt.get() == 0;
+                if (!retryable || attempt >= rateLimitProperties.getMaxRetries()) {
+                    log.error("AI Error", cause);
+                    errorMessage = String.valueOf(cause.getMessage());
+                    break;
+                }
+                log.warn("Retrying {}:{} after attempt {} failed: {}", provider, modelName, attempt + 1, cause.getMessage());
+                executionMetrics.recordRetry(provider, modelName, httpError != null ? httpError.getStatusCode() : 0);
+                // a 429 already paused the key in the limiter; other errors back off here
+                if (httpError == null || !httpError.isRateLimited()) {
+                    backoff(attempt);
+                }
+            }
         }
-        long endTime = System.currentTimeMillis();
+        long endTime = System.nanoTime();
+        boolean failed = responseText == null;
+        modelRouter.record(provider, modelName, TimeUnit.NANOSECONDS.toMillis(endTime - firstAttemptAt), failed);
 
         AIResponse response = new AIResponse();
         response.setResponseText(responseText);
-        response.setResponseTimeMs((int) (endTime - startTime));
+        response.setErrorMessage(errorMessage);
+        response.setResponseTimeMs((int) TimeUnit.NANOSECONDS.toMillis(endTime - startTime));
+        if (firstTokenAt.get() != 0) {
+            response.setTimeToFirstTokenMs((int) TimeUnit.NANOSECONDS.toMillis(firstTokenAt.get() - startTime));
+        }
         response.setProvider(provider);
         response.setModel(modelName);
         response.setMock(false);
-        // Estimate: 1 token ~= 4 chars
-        response.setTokenCount(responseText.length() / 4);
-        // Estimate: $0.002 per 1k tokens
-        response.setCostUsd((response.getTokenCount() / 1000.0) * 0.002);
+        response.setFailed(failed);
+        // provider-reported usage where the response carried it, local counts otherwise
+        response.setPromptTokens(promptTokens);
+        response.setCompletionTokens(failed ? 0 : completionTokens);
+        response.setTokenCount(failed ? 0 : promptTokens + completionTokens);
+        response.setCostUsd(failed ? 0.0 : pricingModel.costOf(promptTokens, completionTokens).doubleValue());
 
+        if (useCache && !failed) {
+            responseCache.put(cacheKey, response);
+        }
         return response;
     }
 
     /**
-     * "LLM-as-a-Judge": Uses a cheaper model to grade the output.
+     * A plain blocking call, e.g. a judge prompt, under the same rate limits
+     * and retries as executions. Throws once the retries are used up.
      */
-    private double evaluateQuality(String originalPrompt, String aiOutput, String apiKeyOverride) {
-        try {
-            ChatLanguageModel judgeModel = buildModel("gpt-3.5-turbo", apiKeyOverride);
-
-            String gradingPrompt = String.format("""
-                                                 You are an AI Quality Judge. Rate the following AI response on a scale of 0.0 to 1.0 based on helpfulness, clarity, and adherence to instructions.
-                                                 Only return the number, nothing else.
-                                                 
-                                                 Original Prompt: %s
-                                                 
-                                                 AI Response: %s""",
-                    originalPrompt.substring(0, Math.min(originalPrompt.length(), 500)),
-                    aiOutput
-            );
-
-            String scoreStr = judgeModel.generate(gradingPrompt).trim();
-            Matcher m = Pattern.compile("[0-1](\\.\\d+)?").matcher(scoreStr);
-            if (m.find()) {
-                return Double.parseDouble(m.group());
+    String generate(String provider, String modelName, String apiKeyOverride, String prompt) {
+        ChatLanguageModel model = buildModel(provider, modelName, apiKeyOverride);
+        int estimatedTokens = tokenCounter.count(provider, modelName, prompt) + rateLimitProperties.getExpectedOutputTokens();
+        for (int attempt = 0; ; attempt++) {
+            ProviderRateLimiter.Permit permit = acquirePermit(provider, modelName, apiKeyOverride, estimatedTokens);
+            try {
+                Response<AiMessage> response = model.generate(UserMessage.from(prompt));
+                TokenUsage usage = response.tokenUsage();
+                permit.success(usage != null && usage.totalTokenCount() != null ? usage.totalTokenCount() : estimatedTokens);
+                return response.content().text();
+            } catch (RuntimeException e) {
+                ProviderHttpException httpError = ProviderHttpException.from(e);
+                if (httpError != null && httpError.isRateLimited()) {
+                    permit.rateLimited(httpError.getRetryAfter());
+                } else {
+                    permit.failed();
+                }
+                if (!ProviderHttpException.isRetryable(e) || attempt >= rateLimitProperties.getMaxRetries()) {
+                    throw e;
+                }
+                log.warn("Retrying {}:{} after attempt {} failed: {}", provider, modelName, attempt + 1, e.getMessage());
+                executionMetrics.recordRetry(provider, modelName, httpError != null ? httpError.getStatusCode() : 0);
+                if (httpError == null || !httpError.isRateLimited()) {
+                    backoff(attempt);
+                }
             }
-            return 0.5;
-        } catch (NumberFormatException e) {
-            log.warn("Failed to auto-evaluate quality", e);
-            return 0.0;
         }
     }
 
-    private ChatLanguageModel buildModel(String modelName, String apiKeyOverride) {
-        if (apiKeyOverride != null && !apiKeyOverride.isBlank()) {
-            return OpenAiChatModel.builder().apiKey(apiKeyOverride).modelName(modelName).build();
+    private ProviderRateLimiter.Permit acquirePermit(String provider, String modelName, String apiKey, int estimatedTokens) {
+        try {
+            return rateLimiter.acquire(provider, modelName, apiKey, estimatedTokens);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for " + provider + ":" + modelName + " capacity", e);
+        }
+    }
+
+    // a duplicate call only goes out within the run's budget and spare rate-limit capacity
+    private ProviderRateLimiter.Permit reserveHedge(HedgingPolicy.Budget budget, String provider, String modelName,
+            String apiKey, int estimatedTokens) {
+        if (!budget.tryUse()) {
+            return null;
+        }
+        ProviderRateLimiter.Permit permit = rateLimiter.tryAcquire(provider, modelName, apiKey, estimatedTokens);
+        if (permit == null) {
+            budget.refund();
         }
-        return globalChatModel.orElseThrow(() -> new RuntimeException("No API Key"));
+        return permit;
     }
 
-    private String resolveVariables(String content, Map<String, String> variables) {
-        if (variables == null) {
-            return content;
+    // exponential with jitter, so inputs that failed together do not retry together
+    private void backoff(int attempt) {
+        long base = rateLimitProperties.getInitialBackoff().toMillis() << Math.min(attempt, 16);
+        long capped = Math.min(base, rateLimitProperties.getMaxBackoff().toMillis());
+        long sleepMs = capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during retry backoff", e);
         }
-        String result = content;
-        for (Map.Entry<String, String> entry : variables.entrySet()) {
-            result = result.replace("{{" + entry.getKey() + "}}", entry.getValue())
-                    .replace("{" + entry.getKey() + "}", entry.getValue());
+    }
+
+    /**
+     * Streams the completion, handing each token to the listener as it
+     * arrives, and blocks until the model is done.
+     */
+    private Completion generate(StreamingChatLanguageModel model, String prompt, Consumer<String> onToken) {
+        CompletableFuture<Response<AiMessage>> done = new CompletableFuture<>();
+        StringBuilder text = new StringBuilder();
+        model.generate(prompt, new StreamingResponseHandler<AiMessage>() {
+            @Override
+            public void onNext(String token) {
+                text.append(token);
+                onToken.accept(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                done.complete(response);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+        });
+        return Completion.of(done.join(), text.toString());
+    }
+
+    private void emit(ExecutionOptions options, String token) {
+        if (options.getTokenListener() != null && token != null) {
+            options.getTokenListener().accept(token);
         }
-        return result;
+    }
+
+    private StreamingChatLanguageModel buildStreamingModel(String provider, String modelName, String apiKeyOverride) {
+        return chatModelRegistry.getStreaming(provider, modelName, apiKeyOverride);
+    }
+
+    private ChatLanguageModel buildModel(String provider, String modelName, String apiKeyOverride) {
+        return chatModelRegistry.get(provider, modelName, apiKeyOverride);
+    }
+
+    /**
+     * A hit costs nothing and takes only the lookup; the stored timings and
+     * cost were those of the original call.
+     */
+    private static AIResponse cacheHit(AIResponse cached, int lookupMs) {
+        AIResponse hit = new AIResponse();
+        hit.setResponseText(cached.getResponseText());
+        hit.setResponseTimeMs(lookupMs);
+        hit.setTimeToFirstTokenMs(lookupMs);
+        hit.setPromptTokens(cached.getPromptTokens());
+        hit.setCompletionTokens(cached.getCompletionTokens());
+        hit.setTokenCount(cached.getTokenCount());
+        hit.setCostUsd(0.0);
+        hit.setProvider(cached.getProvider());
+        hit.setModel(cached.getModel());
+        hit.setCached(true);
+        return hit;
     }
 
     private AIResponse executeMock(String promptContent, Map<String, String> variables, String provider, String modelName) {
         AIResponse res = new AIResponse();
         res.setResponseText("[MOCK] Response for: " + promptContent);
         res.setResponseTimeMs(150 + random.nextInt(100));
+        res.setTimeToFirstTokenMs(40 + random.nextInt(40));
         res.setProvider(provider);
         res.setModel(modelName);
-        res.setTokenCount(promptContent.length() / 4);
+        res.setPromptTokens(tokenCounter.count(provider, modelName, promptContent));
+        res.setCompletionTokens(tokenCounter.count(provider, modelName, res.getResponseText()));
+        res.setTokenCount(res.getPromptTokens() + res.getCompletionTokens());
         res.setCostUsd(0.0);
         res.setMock(true);
         return res;
@@ -153,11 +422,35 @@ public class AIExecutionService {
 
         private String responseText;
         private Integer responseTimeMs;
-        private Integer tokenCount;
-        private Double costUsd;
+        private Integer timeToFirstTokenMs;
+        private Integer promptTokens;
+        private Integer completionTokens;
+        private Integer tokenCount;  // prompt plus completion
+        private Double costUsd;  // from ai.pricing
         private Double qualityScore;
         private String provider;
         private String model;
         private boolean mock;
+        // served from the response cache instead of a model call
+        private boolean cached;
+        // every attempt failed; responseText is null and errorMessage says why
+        private boolean failed;
+        private String errorMessage;
+    }
+
+    @Data
+    public static class ExecutionOptions {
+
+        // skip the response cache for this call even when it is enabled
+        private boolean bypassCache;
+
+        // receives streamed tokens as they arrive; may be null
+        private Consumer<String> tokenListener;
+
+        // allows hedged duplicates of slow calls; null disables hedging
+        private HedgingPolicy.Budget hedgeBudget;
+
+        // the template already rendered with the variables, e.g. once for several models; null renders per call
+        private String renderedPrompt;
     }
 }
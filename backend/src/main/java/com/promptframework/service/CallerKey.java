@@ -0,0 +1,22 @@
+package com.promptframework.service;
+
+/**
+ * The API key a caller sent with a request (X-API-KEY) and the provider it
+ * was issued for. It only goes out with calls to that provider; calls to
+ * any other, such as the judge's, use that provider's configured key.
+ */
+record CallerKey(String provider, String apiKey) {
+
+    static final CallerKey NONE = new CallerKey(null, null);
+
+    static CallerKey of(String provider, String apiKey) {
+        return apiKey == null || apiKey.isBlank() ? NONE : new CallerKey(provider, apiKey);
+    }
+
+    /**
+     * The key to call this provider with, or null for its configured key.
+     */
+    String forProvider(String target) {
+        return apiKey != null && provider != null && provider.equals(target) ? apiKey : null;
+    }
+}
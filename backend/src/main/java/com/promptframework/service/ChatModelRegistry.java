@@ -0,0 +1,160 @@
+package com.promptframework.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.promptframework.provider.ModelProvider;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes calls to the provider named by their aiProvider and keeps built
+ * clients around so their HTTP connection pools are reused across calls.
+ * Each provider has its own pool, keyed by model and a hash of the API
+ * key; idle clients are evicted and each pool's size is bounded, so one
+ * busy provider cannot push out another's clients. Providers that need no
+ * key, like the local "stub", hand out shared clients.
+ */
+@Service
+public class ChatModelRegistry {
+
+    private final Map<String, ClientPool> pools = new LinkedHashMap<>();
+
+    public ChatModelRegistry(List<ModelProvider> providers,
+            MeterRegistry meterRegistry,
+            @Value("${ai.clients.max-size:100}") long maxSize,
+            @Value("${ai.clients.idle-timeout:10m}") Duration idleTimeout) {
+        for (ModelProvider provider : providers) {
+            ClientPool pool = new ClientPool(provider, maxSize, idleTimeout,
+                    meterRegistry.counter("llm.client.creations", "provider", provider.name()));
+            pools.put(provider.name(), pool);
+            Gauge.builder("llm.client.pool.size", pool, ClientPool::size)
+                    .tag("provider", provider.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    public Set<String> providers() {
+        return pools.keySet();
+    }
+
+    public boolean supports(String provider) {
+        return pools.containsKey(provider);
+    }
+
+    public boolean requiresApiKey(String provider) {
+        return pool(provider).provider.requiresApiKey();
+    }
+
+    /**
+     * The key a call to {@code provider} goes out with: the caller's own,
+     * else the configured one. Null when there is neither.
+     */
+    public String apiKeyFor(String provider, String apiKeyOverride) {
+        if (apiKeyOverride != null && !apiKeyOverride.isBlank()) {
+            return apiKeyOverride;
+        }
+        ClientPool pool = pools.get(provider);
+        return pool == null ? null : pool.provider.defaultApiKey();
+    }
+
+    public ChatLanguageModel get(String provider, String modelName, String apiKeyOverride) {
+        ClientPool pool = pool(provider);
+        String apiKey = apiKeyFor(provider, apiKeyOverride);
+        if (!pool.provider.requiresApiKey()) {
+            return pool.provider.chatModel(modelName, apiKey);
+        }
+        return pool.clients.get(pool.key(modelName, apiKey), k -> {
+            pool.creations.increment();
+            return pool.provider.chatModel(modelName, apiKey);
+        });
+    }
+
+    public StreamingChatLanguageModel getStreaming(String provider, String modelName, String apiKeyOverride) {
+        ClientPool pool = pool(provider);
+        String apiKey = apiKeyFor(provider, apiKeyOverride);
+        if (!pool.provider.requiresApiKey()) {
+            return pool.provider.streamingChatModel(modelName, apiKey);
+        }
+        return pool.streamingClients.get(pool.key(modelName, apiKey), k -> {
+            pool.creations.increment();
+            return pool.provider.streamingChatModel(modelName, apiKey);
+        });
+    }
+
+    public long size() {
+        return pools.values().stream().mapToLong(ClientPool::size).sum();
+    }
+
+    private ClientPool pool(String provider) {
+        ClientPool pool = pools.get(provider);
+        if (pool == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown AI provider: " + provider + "; expected one of " + pools.keySet());
+        }
+        return pool;
+    }
+
+    private static String hash(String apiKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class ClientPool {
+
+        final ModelProvider provider;
+        final Cache<ClientKey, ChatLanguageModel> clients;
+        final Cache<ClientKey, StreamingChatLanguageModel> streamingClients;
+        final Counter creations;
+
+        ClientPool(ModelProvider provider, long maxSize, Duration idleTimeout, Counter creations) {
+            this.provider = provider;
+            this.clients = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterAccess(idleTimeout)
+                    .build();
+            this.streamingClients = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterAccess(idleTimeout)
+                    .build();
+            this.creations = creations;
+        }
+
+        ClientKey key(String modelName, String apiKey) {
+            if (apiKey == null) {
+                throw new IllegalStateException("No API key for " + provider.name());
+            }
+            return new ClientKey(modelName, hash(apiKey));
+        }
+
+        long size() {
+            return clients.estimatedSize() + streamingClients.estimatedSize();
+        }
+    }
+
+    private record ClientKey(String modelName, String apiKeyHash) {
+
+    }
+}
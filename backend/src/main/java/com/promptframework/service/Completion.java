@@ -0,0 +1,21 @@
+package com.promptframework.service;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * Text of a finished completion and the token usage the provider reported
+ * for it; usage is null when the provider sent none.
+ */
+record Completion(String text, TokenUsage usage) {
+
+    // streamed is what arrived token by token, used if the final response carries no text
+    static Completion of(Response<AiMessage> response, String streamed) {
+        if (response == null) {
+            return new Completion(streamed, null);
+        }
+        boolean hasText = response.content() != null && response.content().text() != null;
+        return new Completion(hasText ? response.content().text() : streamed, response.tokenUsage());
+    }
+}
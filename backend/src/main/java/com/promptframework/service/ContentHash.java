@@ -0,0 +1,68 @@
+package com.promptframework.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 digests used as content addresses. Prompt text is stored once per
+ * digest in {@code prompt_contents}; test inputs are digested so runs over
+ * the same inputs can be matched.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    public static String of(String content) {
+        MessageDigest digest = newDigest();
+        digest.update(content.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Digest of an ordered list of variable sets. Keys are sorted within
+     * each set, so maps built in a different order hash the same.
+     */
+    public static String ofInputs(List<Map<String, String>> inputs) {
+        InputsDigest digest = new InputsDigest();
+        inputs.forEach(digest::add);
+        return digest.hex();
+    }
+
+    /**
+     * Incremental form of {@link #ofInputs}, for inputs too many to hold at
+     * once such as a dataset being imported. Equal sequences of sets give
+     * equal digests whichever way they were fed in.
+     */
+    public static final class InputsDigest {
+
+        private final MessageDigest digest = newDigest();
+
+        public void add(Map<String, String> input) {
+            for (Map.Entry<String, String> entry : new TreeMap<>(input).entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            digest.update((byte) 1);
+        }
+
+        public String hex() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
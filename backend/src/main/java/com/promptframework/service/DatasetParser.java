@@ -0,0 +1,220 @@
+package com.promptframework.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Incremental readers for dataset uploads. Each call to next() consumes one
+ * record from the stream, so an upload of any size is parsed with one row
+ * in memory. Malformed input is rejected with the line it was found on.
+ */
+final class DatasetParser {
+
+    // bounds a single field or line, since a record is buffered whole
+    private static final int MAX_RECORD_CHARS = 1_000_000;
+
+    private DatasetParser() {
+    }
+
+    interface RowReader {
+
+        /**
+         * @return the next row as variable name to value, or null at the end
+         */
+        Map<String, String> next() throws IOException;
+    }
+
+    /**
+     * RFC 4180 CSV with a header row naming the variables. Quoted fields may
+     * contain commas, doubled quotes and line breaks. Empty lines are
+     * skipped, but a line holding only {@code ""} is a row with one empty
+     * field.
+     */
+    static RowReader csv(BufferedReader in) {
+        return new CsvReader(in);
+    }
+
+    /**
+     * One JSON object per line. Scalar values are taken as text, nested
+     * values as their JSON; null values leave the variable unset.
+     */
+    static RowReader jsonl(BufferedReader in, ObjectMapper objectMapper) {
+        return new JsonlReader(in, objectMapper);
+    }
+
+    private static ResponseStatusException malformed(int line, String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Line " + line + ": " + message);
+    }
+
+    private static final class CsvReader implements RowReader {
+
+        private final BufferedReader in;
+        private List<String> header;
+        private int line = 1;  // line the next record starts on
+
+        CsvReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                int headerLine;
+                do {
+                    headerLine = line;
+                    header = readRecord();
+                } while (header != null && header.isEmpty());
+                if (header == null) {
+                    throw malformed(1, "expected a header row");
+                }
+                // byte order mark written by spreadsheet exports
+                if (header.get(0).startsWith("\uFEFF")) {
+                    header.set(0, header.get(0).substring(1));
+                }
+                Set<String> seen = new HashSet<>();
+                for (String name : header) {
+                    if (name.isBlank() || !seen.add(name)) {
+                        throw malformed(headerLine, "column names must be non-empty and unique");
+                    }
+                }
+            }
+            while (true) {
+                int startLine = line;
+                List<String> fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+                if (fields.isEmpty()) {
+                    continue;
+                }
+                if (fields.size() != header.size()) {
+                    throw malformed(startLine, "expected " + header.size() + " fields, found " + fields.size());
+                }
+                Map<String, String> row = new LinkedHashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    row.put(header.get(i), fields.get(i));
+                }
+                return row;
+            }
+        }
+
+        /**
+         * @return the fields of the next record, an empty list for an empty
+         *         line, or null at the end of the input
+         */
+        private List<String> readRecord() throws IOException {
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            int startLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean sawQuote = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw malformed(startLine, "unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        int next = in.read();
+                        if (next != '"') {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                        field.append('"');
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                    sawQuote = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        in.mark(1);
+                        if (in.read() != '\n') {
+                            in.reset();
+                        }
+                    }
+                    line++;
+                    if (fields.isEmpty() && field.isEmpty() && !sawQuote) {
+                        return List.of();
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                if (field.length() > MAX_RECORD_CHARS) {
+                    throw malformed(startLine, "field longer than " + MAX_RECORD_CHARS + " characters");
+                }
+                c = in.read();
+            }
+        }
+    }
+
+    private static final class JsonlReader implements RowReader {
+
+        private final BufferedReader in;
+        private final ObjectMapper objectMapper;
+        private int line;
+
+        JsonlReader(BufferedReader in, ObjectMapper objectMapper) {
+            this.in = in;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String text;
+            while ((text = in.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                if (text.length() > MAX_RECORD_CHARS) {
+                    throw malformed(line, "line longer than " + MAX_RECORD_CHARS + " characters");
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(text);
+                } catch (JsonProcessingException e) {
+                    throw malformed(line, "invalid JSON: " + e.getOriginalMessage());
+                }
+                if (!node.isObject()) {
+                    throw malformed(line, "expected a JSON object");
+                }
+                Map<String, String> row = new LinkedHashMap<>();
+                for (Map.Entry<String, JsonNode> field : node.properties()) {
+                    JsonNode value = field.getValue();
+                    if (!value.isNull()) {
+                        row.put(field.getKey(), value.isValueNode() ? value.asText() : value.toString());
+                    }
+                }
+                return row;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.promptframework.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promptframework.mapper.DatasetMapper;
+import com.promptframework.model.entity.Dataset;
+import com.promptframework.model.entity.DatasetRow;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports datasets from CSV or JSONL uploads and reads them back in pages.
+ * An upload is parsed as it streams in and written in multi-row inserts of
+ * {@code ai.datasets.import-batch-size}, each committed on its own, so
+ * neither the file nor a long transaction is held. The dataset stays
+ * IMPORTING until the last chunk is in and is deleted if the import fails.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DatasetService {
+
+    private static final int MAX_RECENT = 200;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // 3 bind parameters per row keeps this far below PostgreSQL's limit
+    @Value("${ai.datasets.import-batch-size:1000}")
+    private int importBatchSize;
+
+    @Value("${ai.datasets.max-rows:500000}")
+    private int maxRows;
+
+    @Value("${ai.datasets.page-size:500}")
+    private int pageSize;
+
+    private final DatasetMapper datasetMapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param format {@code csv} or {@code jsonl}
+     */
+    public Dataset importDataset(String name, String description, String format, InputStream body) {
+        BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        DatasetParser.RowReader reader = switch (format) {
+            case "csv" -> DatasetParser.csv(in);
+            case "jsonl" -> DatasetParser.jsonl(in, objectMapper);
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported dataset format: " + format);
+        };
+
+        Dataset dataset = new Dataset();
+        dataset.setName(name);
+        dataset.setDescription(description);
+        datasetMapper.insert(dataset);
+
+        try {
+            ContentHash.InputsDigest digest = new ContentHash.InputsDigest();
+            Set<String> columns = null;
+            List<DatasetRow> chunk = new ArrayList<>(importBatchSize);
+            int count = 0;
+
+            Map<String, String> variables;
+            while ((variables = reader.next()) != null) {
+                if (count == maxRows) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Dataset has more than " + maxRows + " rows");
+                }
+                // a variable is only usable if every row sets it
+                if (columns == null) {
+                    columns = new LinkedHashSet<>(variables.keySet());
+                } else {
+                    columns.retainAll(variables.keySet());
+                }
+                digest.add(variables);
+
+                DatasetRow row = new DatasetRow();
+                row.setDatasetId(dataset.getId());
+                row.setRowIndex(count++);
+                row.setVariables(variables);
+                chunk.add(row);
+                if (chunk.size() >= importBatchSize) {
+                    datasetMapper.insertRows(chunk);
+                    chunk = new ArrayList<>(importBatchSize);
+                }
+            }
+            if (count == 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Dataset has no rows");
+            }
+            if (!chunk.isEmpty()) {
+                datasetMapper.insertRows(chunk);
+            }
+
+            dataset.setRowCount(count);
+            dataset.setColumns(new ArrayList<>(columns));
+            dataset.setContentHash(digest.hex());
+            datasetMapper.markReady(dataset);
+            dataset.setStatus("READY");
+            log.info("Imported dataset {} ({} rows)", dataset.getId(), count);
+            return dataset;
+
+        } catch (IOException e) {
+            discard(dataset);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not read dataset upload", e);
+        } catch (RuntimeException e) {
+            discard(dataset);
+            throw e;
+        }
+    }
+
+    private void discard(Dataset dataset) {
+        try {
+            datasetMapper.deleteById(dataset.getId());
+        } catch (Exception e) {
+            log.warn("Could not remove failed import of dataset {}", dataset.getId(), e);
+        }
+    }
+
+    public Dataset getDataset(Long id) {
+        Dataset dataset = datasetMapper.findById(id);
+        if (dataset == null) {
+            throw new RuntimeException("Dataset not found: " + id);
+        }
+        return dataset;
+    }
+
+    /**
+     * A dataset that can be run; one still importing is rejected.
+     */
+    public Dataset getReadyDataset(Long id) {
+        Dataset dataset = getDataset(id);
+        if (!"READY".equals(dataset.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Dataset " + id + " is still importing");
+        }
+        return dataset;
+    }
+
+    public List<Dataset> getRecentDatasets() {
+        return datasetMapper.findRecent(MAX_RECENT);
+    }
+
+    /**
+     * Rows after {@code afterIndex} (-1 for the first page), in file order.
+     */
+    public List<DatasetRow> getRows(Long datasetId, int afterIndex, int limit) {
+        return datasetMapper.findRows(datasetId, afterIndex, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Rows of a dataset in file order, fetched a page at a time as the
+     * iterator advances, so a run holds at most one page of inputs.
+     */
+    public Iterator<DatasetRow> rows(Long datasetId) {
+        return new Iterator<>() {
+
+            private List<DatasetRow> page = List.of();
+            private int position;
+            private int lastIndex = -1;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (position < page.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                page = datasetMapper.findRows(datasetId, lastIndex, pageSize);
+                position = 0;
+                exhausted = page.size() < pageSize;
+                return !page.isEmpty();
+            }
+
+            @Override
+            public DatasetRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                DatasetRow row = page.get(position++);
+                lastIndex = row.getRowIndex();
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Rows of a dataset in a random order fixed by {@code seed}. Only the
+     * shuffled row indexes are held (4 bytes a row); the rows themselves
+     * are fetched a page at a time by index as the iterator advances.
+     */
+    public Iterator<DatasetRow> shuffledRows(Dataset dataset, long seed) {
+        int[] order = shuffledIndexes(dataset.getRowCount(), seed);
+        return new Iterator<>() {
+
+            private List<DatasetRow> page = List.of();
+            private int position;
+            private int fetched;
+
+            @Override
+            public boolean hasNext() {
+                if (position < page.size()) {
+                    return true;
+                }
+                if (fetched == order.length) {
+                    return false;
+                }
+                int[] indexes = Arrays.copyOfRange(order, fetched, Math.min(fetched + pageSize, order.length));
+                fetched += indexes.length;
+                Map<Integer, DatasetRow> byIndex = new HashMap<>();
+                for (DatasetRow row : datasetMapper.findRowsByIndexes(dataset.getId(), Arrays.stream(indexes).boxed().toList())) {
+                    byIndex.put(row.getRowIndex(), row);
+                }
+                page = new ArrayList<>(indexes.length);
+                for (int index : indexes) {
+                    page.add(byIndex.get(index));
+                }
+                position = 0;
+                return true;
+            }
+
+            @Override
+            public DatasetRow next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(position++);
+            }
+        };
+    }
+
+    /**
+     * 0 to {@code count - 1} in a random order fixed by {@code seed}
+     * (Fisher-Yates).
+     */
+    static int[] shuffledIndexes(int count, long seed) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+}
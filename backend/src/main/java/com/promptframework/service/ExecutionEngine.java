@@ -0,0 +1,198 @@
+package com.promptframework.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+import com.promptframework.config.ExecutionProperties;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans test inputs out onto virtual threads. In-flight calls are bounded by
+ * a semaphore shared by every run that targets the same provider/model.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExecutionEngine {
+
+    private final ExecutionProperties properties;
+
+    private final ConcurrentMap<String, Semaphore> permits = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Runs {@code task} for every input and returns the results in input
+     * order. The listener is invoked on the calling thread as each result
+     * finishes, so callers can persist inside their own transaction.
+     * The first task failure cancels the remaining work and is rethrown.
+     */
+    public <T, R> List<R> executeAll(String provider, String modelName, List<T> inputs,
+            Function<T, R> task, ResultListener<R> listener) {
+
+        Semaphore semaphore = permitsFor(provider, modelName);
+        CompletionService<Indexed<R>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Indexed<R>>> futures = new ArrayList<>(inputs.size());
+
+        for (int i = 0; i < inputs.size(); i++) {
+            futures.add(submit(completion, semaphore, i, inputs.get(i), task));
+        }
+
+        List<R> results = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+        boolean finished = false;
+        try {
+            for (int done = 0; done < inputs.size(); done++) {
+                Indexed<R> next = completion.take().get();
+                results.set(next.index(), next.value());
+                if (listener != null) {
+                    listener.onResult(next.index(), next.value());
+                }
+            }
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execution interrupted", e);
+        } catch (ExecutionException e) {
+            throw failure(e);
+        } finally {
+            if (!finished) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Like {@link #executeAll} for inputs that are read as the run goes,
+     * such as dataset rows paged from the database, each bound for one of
+     * {@code targets}. Only twice the targets' combined concurrency is
+     * submitted ahead of the finished results and nothing is kept once the
+     * listener has seen it, so memory stays flat however many inputs there
+     * are. Each call still waits for its own model's permits. Indexes count
+     * inputs in iteration order.
+     */
+    public <T, R> void executeStream(Collection<Target> targets, Iterator<T> inputs, Function<T, Target> targetOf,
+            Function<T, R> task, ResultListener<R> listener) {
+
+        int window = 2 * targets.stream()
+                .mapToInt(target -> Math.max(1, properties.concurrencyFor(target.provider(), target.modelName())))
+                .sum();
+        CompletionService<Indexed<R>> completion = new ExecutorCompletionService<>(executor);
+        Set<Future<Indexed<R>>> inFlight = new HashSet<>();
+
+        int submitted = 0;
+        boolean finished = false;
+        try {
+            while (true) {
+                while (inFlight.size() < window && inputs.hasNext()) {
+                    T input = inputs.next();
+                    Target target = targetOf.apply(input);
+                    Semaphore semaphore = permitsFor(target.provider(), target.modelName());
+                    inFlight.add(submit(completion, semaphore, submitted++, input, task));
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                Future<Indexed<R>> done = completion.take();
+                inFlight.remove(done);
+                Indexed<R> next = done.get();
+                if (listener != null) {
+                    listener.onResult(next.index(), next.value());
+                }
+            }
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execution interrupted", e);
+        } catch (ExecutionException e) {
+            throw failure(e);
+        } finally {
+            if (!finished) {
+                inFlight.forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    private static <T, R> Future<Indexed<R>> submit(CompletionService<Indexed<R>> completion, Semaphore semaphore,
+            int index, T input, Function<T, R> task) {
+        return completion.submit(() -> {
+            semaphore.acquire();
+            try {
+                return new Indexed<>(index, task.apply(input));
+            } finally {
+                semaphore.release();
+            }
+        });
+    }
+
+    private static RuntimeException failure(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException("Execution failed", cause);
+    }
+
+    /**
+     * Runs a single call on the current thread under the same per-model
+     * bound as {@link #executeAll}.
+     */
+    public <R> R call(String provider, String modelName, Supplier<R> task) {
+        Semaphore semaphore = permitsFor(provider, modelName);
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execution interrupted", e);
+        }
+        try {
+            return task.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private Semaphore permitsFor(String provider, String modelName) {
+        return permits.computeIfAbsent(provider + ":" + modelName,
+                key -> new Semaphore(Math.max(1, properties.concurrencyFor(provider, modelName))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface ResultListener<R> {
+
+        void onResult(int index, R result);
+    }
+
+    public record Target(String provider, String modelName) {
+
+    }
+
+    private record Indexed<R>(int index, R value) {
+
+    }
+}
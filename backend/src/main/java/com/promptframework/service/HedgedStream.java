@@ -0,0 +1,168 @@
+package com.promptframework.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+/**
+ * One streamed completion, raced against a duplicate started if no token
+ * has arrived by the hedge delay. The first attempt to stream a token wins
+ * and only its tokens reach the listener. The others are interrupted where
+ * the client allows it, and otherwise left to finish unread. If every
+ * attempt fails before any token, the first error is rethrown.
+ */
+final class HedgedStream {
+
+    private final StreamingChatLanguageModel model;
+    private final String prompt;
+    private final Consumer<String> onToken;
+    private final CompletableFuture<Completion> done = new CompletableFuture<>();
+    private final CountDownLatch settled = new CountDownLatch(1);
+    private final List<Attempt> attempts = new ArrayList<>();
+    private int failures;
+    private Throwable firstError;
+    private volatile Attempt winner;
+
+    HedgedStream(StreamingChatLanguageModel model, String prompt, Consumer<String> onToken) {
+        this.model = model;
+        this.prompt = prompt;
+        this.onToken = onToken;
+    }
+
+    /**
+     * @param hedgePermit reserves capacity for the duplicate; returns null
+     *                    when there is none, in which case no hedge is sent
+     */
+    Outcome run(long hedgeDelayMs, Supplier<ProviderRateLimiter.Permit> hedgePermit) {
+        Attempt primary = start(null);
+        boolean hedged = false;
+        try {
+            if (!settled.await(hedgeDelayMs, TimeUnit.MILLISECONDS)) {
+                ProviderRateLimiter.Permit permit = hedgePermit.get();
+                if (permit != null) {
+                    start(permit);
+                    hedged = true;
+                }
+            }
+            Completion completion = done.join();
+            Attempt won = winner;
+            if (won == primary) {
+                return new Outcome(completion, hedged, false, 0);
+            }
+            // lower bound: the primary may not have produced a token at all yet
+            long primaryFirstToken = primary.firstTokenAt != 0 ? primary.firstTokenAt : System.nanoTime();
+            return new Outcome(completion, true, true, TimeUnit.NANOSECONDS.toMillis(primaryFirstToken - won.firstTokenAt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the model", e);
+        } finally {
+            cancelLosers();
+        }
+    }
+
+    private synchronized Attempt start(ProviderRateLimiter.Permit permit) {
+        Attempt attempt = new Attempt(permit);
+        attempts.add(attempt);
+        attempt.thread = Thread.ofVirtual().name("hedged-call").start(() -> {
+            try {
+                model.generate(prompt, attempt);
+            } catch (RuntimeException e) {
+                attempt.onError(e);
+            }
+        });
+        return attempt;
+    }
+
+    private boolean claim(Attempt attempt) {
+        if (winner == null) {
+            synchronized (this) {
+                if (winner == null) {
+                    winner = attempt;
+                    settled.countDown();
+                }
+            }
+        }
+        return winner == attempt;
+    }
+
+    private synchronized void failed(Attempt attempt, Throwable error) {
+        failures++;
+        if (firstError == null) {
+            firstError = error;
+        }
+        if (winner == attempt) {
+            done.completeExceptionally(error);
+            settled.countDown();
+        } else if (winner == null && failures == attempts.size()) {
+            done.completeExceptionally(firstError);
+            settled.countDown();
+        }
+    }
+
+    private synchronized void cancelLosers() {
+        for (Attempt attempt : attempts) {
+            if (attempt != winner && attempt.thread != null) {
+                attempt.thread.interrupt();
+            }
+        }
+    }
+
+    record Outcome(Completion completion, boolean hedged, boolean hedgeWon, long savedMs) {
+    }
+
+    private final class Attempt implements StreamingResponseHandler<AiMessage> {
+
+        // held by the duplicate only; the primary's permit belongs to the caller
+        private final ProviderRateLimiter.Permit permit;
+        private final StringBuilder text = new StringBuilder();
+        private volatile long firstTokenAt;
+        private volatile Thread thread;
+        private int streamedChars;
+
+        Attempt(ProviderRateLimiter.Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onNext(String token) {
+            if (firstTokenAt == 0) {
+                firstTokenAt = System.nanoTime();
+            }
+            streamedChars += token.length();
+            if (claim(this)) {
+                text.append(token);
+                onToken.accept(token);
+            }
+        }
+
+        @Override
+        public void onComplete(Response<AiMessage> response) {
+            TokenUsage usage = response == null ? null : response.tokenUsage();
+            if (permit != null) {
+                permit.success(usage != null && usage.totalTokenCount() != null
+                        ? usage.totalTokenCount() : (prompt.length() + streamedChars) / 4);
+            }
+            if (claim(this)) {
+                done.complete(Completion.of(response, text.toString()));
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (permit != null) {
+                permit.failed();
+            }
+            failed(this, error);
+        }
+    }
+}
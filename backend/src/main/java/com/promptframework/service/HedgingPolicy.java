@@ -0,0 +1,129 @@
+package com.promptframework.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.promptframework.metrics.LatencyHistogram;
+
+/**
+ * Decides when a slow model call gets a duplicate. Time to first token is
+ * learned per provider/model; once a call has waited past the configured
+ * percentile of it with no token, a second identical call is started and
+ * the first to stream wins. Each run gets a budget capping its extra calls.
+ */
+@Service
+public class HedgingPolicy {
+
+    // halve the learned distribution every this many samples so it follows drift
+    private static final int DECAY_EVERY = 1000;
+
+    @Value("${ai.hedging.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ai.hedging.percentile:0.95}")
+    private double percentile;
+
+    @Value("${ai.hedging.min-samples:20}")
+    private int minSamples;
+
+    @Value("${ai.hedging.min-delay-ms:200}")
+    private long minDelayMs;
+
+    @Value("${ai.hedging.max-extra-fraction:0.1}")
+    private double maxExtraFraction;
+
+    private final ConcurrentHashMap<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A budget for a run of {@code inputs} calls, or null when hedging is off.
+     */
+    public Budget budgetFor(int inputs) {
+        if (!enabled) {
+            return null;
+        }
+        return new Budget((int) Math.max(1, Math.ceil(inputs * maxExtraFraction)));
+    }
+
+    public void recordFirstToken(String provider, String modelName, long firstTokenMs) {
+        trackers.computeIfAbsent(provider + ":" + modelName, k -> new Tracker()).record(firstTokenMs);
+    }
+
+    /**
+     * How long to wait for a first token before hedging, or null while too
+     * few calls have been seen to know what slow means.
+     */
+    public Long hedgeDelayMs(String provider, String modelName) {
+        Tracker tracker = trackers.get(provider + ":" + modelName);
+        return tracker == null ? null : tracker.delayMs();
+    }
+
+    private final class Tracker {
+
+        private final LatencyHistogram firstToken = new LatencyHistogram();
+        private int samples;
+
+        synchronized void record(long firstTokenMs) {
+            firstToken.record(firstTokenMs);
+            if (++samples % DECAY_EVERY == 0) {
+                firstToken.decay();
+            }
+        }
+
+        synchronized Long delayMs() {
+            if (samples < minSamples) {
+                return null;
+            }
+            Long value = firstToken.percentile(percentile);
+            return value == null ? null : Math.max(minDelayMs, value);
+        }
+    }
+
+    /**
+     * Extra calls allowed for one run, and what they achieved. Shared by the
+     * run's concurrent calls.
+     */
+    public static final class Budget {
+
+        private final int maxHedges;
+        private final AtomicInteger issued = new AtomicInteger();
+        private final AtomicInteger won = new AtomicInteger();
+        private final AtomicLong savedMs = new AtomicLong();
+
+        Budget(int maxHedges) {
+            this.maxHedges = maxHedges;
+        }
+
+        boolean tryUse() {
+            return issued.getAndUpdate(n -> n < maxHedges ? n + 1 : n) < maxHedges;
+        }
+
+        void refund() {
+            issued.decrementAndGet();
+        }
+
+        void recordWin(long savedMillis) {
+            won.incrementAndGet();
+            savedMs.addAndGet(Math.max(0, savedMillis));
+        }
+
+        public int getIssued() {
+            return issued.get();
+        }
+
+        public int getWon() {
+            return won.get();
+        }
+
+        public long getSavedMs() {
+            return savedMs.get();
+        }
+    }
+}
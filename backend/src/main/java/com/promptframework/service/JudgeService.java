@@ -0,0 +1,240 @@
+package com.promptframework.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.promptframework.mapper.TestResultMapper;
+import com.promptframework.metrics.ExecutionMetrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * "LLM-as-a-Judge" as its own pipeline stage. Persisted results are queued
+ * here, grouped into batches that share a judge model and key, graded with
+ * one prompt per batch, and their quality_score is written back
+ * asynchronously. Batches run concurrently under the judge model's
+ * ExecutionEngine bound, and judge calls share the rate limits and
+ * retries of executions, so a 429 pauses them rather than failing them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class JudgeService {
+
+    private static final Pattern SINGLE_SCORE = Pattern.compile("[0-1](\\.\\d+)?");
+    private static final Pattern NUMBERED_SCORE = Pattern.compile("(?m)^\\s*(\\d+)\\s*[:.)-]\\s*([0-1](?:\\.\\d+)?)");
+
+    @Value("${ai.judge.provider:openai}")
+    private String defaultJudgeProvider;
+
+    @Value("${ai.judge.model:gpt-3.5-turbo}")
+    private String defaultJudgeModel;
+
+    @Value("${ai.judge.batch-size:5}")
+    private int batchSize;
+
+    @Value("${ai.judge.linger-ms:200}")
+    private long lingerMs;
+
+    @Value("${ai.judge.max-prompt-chars:500}")
+    private int maxPromptChars;
+
+    @Value("${ai.judge.max-response-chars:4000}")
+    private int maxResponseChars;
+
+    private final AIExecutionService aiExecutionService;
+    private final ExecutionEngine executionEngine;
+    private final TestResultMapper testResultMapper;
+    private final ExecutionMetrics executionMetrics;
+
+    private final BlockingQueue<JudgeTask> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean running = true;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void start() {
+        executionMetrics.gaugeJudgeBacklog(queue);
+        dispatcher = Thread.ofPlatform().daemon().name("judge-dispatcher").start(this::dispatchLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        workers.shutdownNow();
+    }
+
+    public String getDefaultJudgeModel() {
+        return defaultJudgeModel;
+    }
+
+    /**
+     * Queues a persisted result for grading. The returned future completes
+     * with the score once it has been written to test_results. The caller's
+     * key is only used if it was issued for the judge's provider.
+     */
+    CompletableFuture<Double> submit(Long resultId, String originalPrompt, String aiOutput,
+            String judgeModel, CallerKey callerKey) {
+
+        String apiKey = callerKey.forProvider(defaultJudgeProvider);
+        CompletableFuture<Double> score = new CompletableFuture<>();
+        if (aiExecutionService.isMock(defaultJudgeProvider, apiKey)) {
+            double mockScore = aiExecutionService.mockQualityScore();
+            testResultMapper.updateQualityScore(resultId, mockScore);
+            score.complete(mockScore);
+            return score;
+        }
+        String model = judgeModel == null || judgeModel.isBlank() ? defaultJudgeModel : judgeModel;
+        queue.add(new JudgeTask(resultId, originalPrompt, aiOutput, model, apiKey, score));
+        return score;
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                JudgeTask first = queue.take();
+                List<JudgeTask> drained = new ArrayList<>();
+                drained.add(first);
+                // give concurrently finishing results a moment to join the batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (drained.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    JudgeTask next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    drained.add(next);
+                }
+                queue.drainTo(drained);
+
+                Map<String, List<JudgeTask>> groups = new LinkedHashMap<>();
+                for (JudgeTask task : drained) {
+                    groups.computeIfAbsent(task.judgeModel() + "\u0000" + task.apiKey(), k -> new ArrayList<>()).add(task);
+                }
+                for (List<JudgeTask> group : groups.values()) {
+                    for (int from = 0; from < group.size(); from += batchSize) {
+                        List<JudgeTask> batch = group.subList(from, Math.min(from + batchSize, group.size()));
+                        workers.submit(() -> grade(batch));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Judge dispatcher error", e);
+            }
+        }
+    }
+
+    private void grade(List<JudgeTask> batch) {
+        JudgeTask head = batch.get(0);
+        Map<Integer, Double> scores = Map.of();
+        if (batch.size() > 1) {
+            try {
+                scores = executionEngine.call(defaultJudgeProvider, head.judgeModel(), () -> executionMetrics.timeJudge(
+                        defaultJudgeProvider, head.judgeModel(), "batch", () -> gradeBatch(batch)));
+            } catch (Exception e) {
+                // the items are graded one by one below, so one bad batch does not cost every score
+                log.warn("Batched judge call failed, grading {} items singly", batch.size(), e);
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            JudgeTask task = batch.get(i);
+            try {
+                Double score = scores.get(i + 1);
+                if (score == null) {
+                    // single item, or the batched answer did not cover it
+                    if (batch.size() > 1) {
+                        executionMetrics.recordJudgeFallback(defaultJudgeProvider, head.judgeModel());
+                    }
+                    score = executionEngine.call(defaultJudgeProvider, head.judgeModel(), () -> executionMetrics.timeJudge(
+                            defaultJudgeProvider, head.judgeModel(), "single", () -> gradeOne(task)));
+                }
+                testResultMapper.updateQualityScore(task.resultId(), score);
+                task.score().complete(score);
+            } catch (Exception e) {
+                log.warn("Failed to auto-evaluate quality", e);
+                task.score().completeExceptionally(e);
+            }
+        }
+    }
+
+    private double gradeOne(JudgeTask task) {
+        String gradingPrompt = String.format("""
+                                             You are an AI Quality Judge. Rate the following AI response on a scale of 0.0 to 1.0 based on helpfulness, clarity, and adherence to instructions.
+                                             Only return the number, nothing else.
+                                             
+                                             Original Prompt: %s
+                                             
+                                             AI Response: %s""",
+                truncate(task.originalPrompt(), maxPromptChars),
+                task.aiOutput()
+        );
+
+        String scoreStr = ask(task, gradingPrompt).trim();
+        Matcher m = SINGLE_SCORE.matcher(scoreStr);
+        if (m.find()) {
+            return Double.parseDouble(m.group());
+        }
+        return 0.5;
+    }
+
+    private Map<Integer, Double> gradeBatch(List<JudgeTask> batch) {
+        StringBuilder gradingPrompt = new StringBuilder("""
+                You are an AI Quality Judge. Rate each of the following AI responses on a scale of 0.0 to 1.0 based on helpfulness, clarity, and adherence to its prompt.
+                Return one line per item in the form "<item number>: <score>", nothing else.
+                """);
+        for (int i = 0; i < batch.size(); i++) {
+            JudgeTask task = batch.get(i);
+            gradingPrompt.append("\n### Item ").append(i + 1)
+                    .append("\nOriginal Prompt: ").append(truncate(task.originalPrompt(), maxPromptChars))
+                    .append("\nAI Response: ").append(truncate(task.aiOutput(), maxResponseChars))
+                    .append('\n');
+        }
+
+        Map<Integer, Double> scores = new LinkedHashMap<>();
+        Matcher m = NUMBERED_SCORE.matcher(ask(batch.get(0), gradingPrompt.toString()));
+        while (m.find()) {
+            int item = Integer.parseInt(m.group(1));
+            if (item >= 1 && item <= batch.size()) {
+                scores.putIfAbsent(item, Double.parseDouble(m.group(2)));
+            }
+        }
+        return scores;
+    }
+
+    // tasks of a batch share judge model and key
+    private String ask(JudgeTask task, String gradingPrompt) {
+        return aiExecutionService.generate(defaultJudgeProvider, task.judgeModel(), task.apiKey(), gradingPrompt);
+    }
+
+    private static String truncate(String text, int maxChars) {
+        if (text == null) {
+            return "";
+        }
+        return text.substring(0, Math.min(text.length(), maxChars));
+    }
+
+    private record JudgeTask(Long resultId, String originalPrompt, String aiOutput,
+            String judgeModel, String apiKey, CompletableFuture<Double> score) {
+
+    }
+}
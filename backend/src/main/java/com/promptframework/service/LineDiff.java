@@ -0,0 +1,92 @@
+package com.promptframework.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.promptframework.model.dto.VersionDiff;
+
+/**
+ * Line diff of two prompt texts. Common leading and trailing lines are
+ * matched directly and the middle by longest common subsequence, which is
+ * cheap for prompts where edits are usually local. A middle too large for
+ * the LCS table is reported as removed and re-added in full.
+ */
+final class LineDiff {
+
+    private static final long MAX_CELLS = 4_000_000;
+
+    private LineDiff() {
+    }
+
+    static List<VersionDiff.Line> diff(String from, String to) {
+        String[] a = from.split("\n", -1);
+        String[] b = to.split("\n", -1);
+
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix].equals(b[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix])) {
+            suffix++;
+        }
+
+        List<VersionDiff.Line> lines = new ArrayList<>();
+        for (int i = 0; i < prefix; i++) {
+            lines.add(new VersionDiff.Line("EQUAL", a[i]));
+        }
+        middle(a, prefix, a.length - suffix, b, prefix, b.length - suffix, lines);
+        for (int i = a.length - suffix; i < a.length; i++) {
+            lines.add(new VersionDiff.Line("EQUAL", a[i]));
+        }
+        return lines;
+    }
+
+    private static void middle(String[] a, int aStart, int aEnd, String[] b, int bStart, int bEnd,
+            List<VersionDiff.Line> out) {
+        int n = aEnd - aStart;
+        int m = bEnd - bStart;
+        if ((long) n * m > MAX_CELLS) {
+            for (int i = aStart; i < aEnd; i++) {
+                out.add(new VersionDiff.Line("REMOVED", a[i]));
+            }
+            for (int j = bStart; j < bEnd; j++) {
+                out.add(new VersionDiff.Line("ADDED", b[j]));
+            }
+            return;
+        }
+
+        // lcs[i][j] = length of the LCS of a[aStart + i..] and b[bStart + j..]
+        int[][] lcs = new int[n + 1][m + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                lcs[i][j] = a[aStart + i].equals(b[bStart + j])
+                        ? lcs[i + 1][j + 1] + 1
+                        : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+
+        int i = 0;
+        int j = 0;
+        while (i < n && j < m) {
+            if (a[aStart + i].equals(b[bStart + j])) {
+                out.add(new VersionDiff.Line("EQUAL", a[aStart + i]));
+                i++;
+                j++;
+            } else if (lcs[i + 1][j] >= lcs[i][j + 1]) {
+                out.add(new VersionDiff.Line("REMOVED", a[aStart + i]));
+                i++;
+            } else {
+                out.add(new VersionDiff.Line("ADDED", b[bStart + j]));
+                j++;
+            }
+        }
+        for (; i < n; i++) {
+            out.add(new VersionDiff.Line("REMOVED", a[aStart + i]));
+        }
+        for (; j < m; j++) {
+            out.add(new VersionDiff.Line("ADDED", b[bStart + j]));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.promptframework.service;
 
+import com.promptframework.metrics.LatencyHistogram;
 import com.promptframework.model.dto.TestRunResponse;
 import com.promptframework.model.entity.TestResult;
+import com.promptframework.model.entity.TestRunMetrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -16,38 +18,129 @@ public class MetricsService {
         if (results == null || results.isEmpty()) {
             return createEmptyMetrics();
         }
+        return summarize(accumulate(null, results, 0));
+    }
 
-        double avgResponseTime = results.stream()
-                .mapToInt(TestResult::getResponseTimeMs)
-                .average()
-                .orElse(0.0);
+    /**
+     * Aggregates of a chunk of results, ready to be added to the run's
+     * stored row with {@code TestRunMetricsMapper.merge}. FAILED results
+     * only add to the error count, as do {@code unrecordedFailures}: inputs
+     * that failed without leaving a result.
+     */
+    public TestRunMetrics accumulate(Long testRunId, List<TestResult> results, int unrecordedFailures) {
+        TestRunMetrics delta = new TestRunMetrics();
+        delta.setTestRunId(testRunId);
+        int errors = unrecordedFailures;
+        int succeeded = 0;
+        LatencyHistogram latency = new LatencyHistogram();
+        long responseTimeSum = 0;
+        long ttftSum = 0;
+        int ttftCount = 0;
+        long tokens = 0;
+        BigDecimal cost = BigDecimal.ZERO;
+        double qualitySum = 0;
+        int qualityCount = 0;
 
-        double avgQualityScore = results.stream()
-                .mapToDouble(TestResult::getQualityScore)
-                .average()
-                .orElse(0.0);
+        for (TestResult result : results) {
+            if ("FAILED".equals(result.getStatus())) {
+                errors++;
+                continue;
+            }
+            succeeded++;
+            if (result.getResponseTimeMs() != null) {
+                responseTimeSum += result.getResponseTimeMs();
+                latency.record(result.getResponseTimeMs());
+            }
+            if (result.getTimeToFirstTokenMs() != null) {
+                ttftSum += result.getTimeToFirstTokenMs();
+                ttftCount++;
+            }
+            if (result.getTokenCount() != null) {
+                tokens += result.getTokenCount();
+            }
+            if (result.getCostUsd() != null) {
+                cost = cost.add(result.getCostUsd());
+            }
+            // judge scores land asynchronously and are added by the judge
+            if (result.getQualityScore() != null) {
+                qualitySum += result.getQualityScore();
+                qualityCount++;
+            }
+        }
 
-        int totalTokens = results.stream()
-                .mapToInt(TestResult::getTokenCount)
-                .sum();
+        delta.setResultCount(succeeded);
+        delta.setErrorCount(errors);
+        delta.setResponseTimeSumMs(responseTimeSum);
+        delta.setTtftSumMs(ttftSum);
+        delta.setTtftCount(ttftCount);
+        delta.setTotalTokens(tokens);
+        delta.setTotalCostUsd(cost);
+        delta.setQualitySum(qualitySum);
+        delta.setQualityCount(qualityCount);
+        delta.setLatencyBuckets(latency.toArray());
+        return delta;
+    }
 
-        double totalCost = results.stream()
-                .map(TestResult::getCostUsd)
-                .map(BigDecimal::doubleValue)
-                .reduce(0.0, Double::sum);
+    /**
+     * Combines stored run metrics, e.g. every run of a version, without
+     * touching their results.
+     */
+    public TestRunMetrics merge(List<TestRunMetrics> runs) {
+        TestRunMetrics total = new TestRunMetrics();
+        LatencyHistogram latency = new LatencyHistogram();
+        for (TestRunMetrics run : runs) {
+            total.setResultCount(total.getResultCount() + run.getResultCount());
+            total.setErrorCount(total.getErrorCount() + run.getErrorCount());
+            total.setResponseTimeSumMs(total.getResponseTimeSumMs() + run.getResponseTimeSumMs());
+            total.setTtftSumMs(total.getTtftSumMs() + run.getTtftSumMs());
+            total.setTtftCount(total.getTtftCount() + run.getTtftCount());
+            total.setTotalTokens(total.getTotalTokens() + run.getTotalTokens());
+            total.setTotalCostUsd(total.getTotalCostUsd().add(run.getTotalCostUsd()));
+            total.setQualitySum(total.getQualitySum() + run.getQualitySum());
+            total.setQualityCount(total.getQualityCount() + run.getQualityCount());
+            total.setHedgedRequests(total.getHedgedRequests() + run.getHedgedRequests());
+            total.setHedgeWins(total.getHedgeWins() + run.getHedgeWins());
+            total.setHedgeSavedMs(total.getHedgeSavedMs() + run.getHedgeSavedMs());
+            latency.merge(LatencyHistogram.of(run.getLatencyBuckets()));
+        }
+        total.setLatencyBuckets(latency.toArray());
+        return total;
+    }
 
-        TestRunResponse.MetricsSummary metrics = new TestRunResponse.MetricsSummary();
-        metrics.setAverageResponseTimeMs(avgResponseTime);
-        metrics.setAverageQualityScore(avgQualityScore);
-        metrics.setTotalTokens(totalTokens);
-        metrics.setTotalCostUsd(totalCost);
+    public TestRunResponse.MetricsSummary summarize(TestRunMetrics stored) {
+        if (stored == null) {
+            return createEmptyMetrics();
+        }
+        LatencyHistogram latency = LatencyHistogram.of(stored.getLatencyBuckets());
 
+        TestRunResponse.MetricsSummary metrics = new TestRunResponse.MetricsSummary();
+        metrics.setResultCount(stored.getResultCount());
+        metrics.setErrorCount(stored.getErrorCount());
+        metrics.setAverageResponseTimeMs(average(stored.getResponseTimeSumMs(), stored.getResultCount()));
+        metrics.setP50ResponseTimeMs(latency.percentile(0.50));
+        metrics.setP90ResponseTimeMs(latency.percentile(0.90));
+        metrics.setP99ResponseTimeMs(latency.percentile(0.99));
+        metrics.setAverageTimeToFirstTokenMs(average(stored.getTtftSumMs(), stored.getTtftCount()));
+        metrics.setAverageQualityScore(average(stored.getQualitySum(), stored.getQualityCount()));
+        metrics.setTotalTokens(stored.getTotalTokens().intValue());
+        metrics.setTotalCostUsd(stored.getTotalCostUsd().doubleValue());
+        metrics.setHedgedRequests(stored.getHedgedRequests());
+        metrics.setHedgeWins(stored.getHedgeWins());
+        metrics.setHedgeSavedMs(stored.getHedgeSavedMs());
+        metrics.setHedgeRate(average(stored.getHedgedRequests(), stored.getResultCount() + stored.getErrorCount()));
         return metrics;
     }
 
+    private static double average(double sum, int count) {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
     private TestRunResponse.MetricsSummary createEmptyMetrics() {
         TestRunResponse.MetricsSummary metrics = new TestRunResponse.MetricsSummary();
+        metrics.setResultCount(0);
+        metrics.setErrorCount(0);
         metrics.setAverageResponseTimeMs(0.0);
+        metrics.setAverageTimeToFirstTokenMs(0.0);
         metrics.setAverageQualityScore(0.0);
         metrics.setTotalTokens(0);
         metrics.setTotalCostUsd(0.0);
@@ -0,0 +1,177 @@
+package com.promptframework.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.promptframework.config.RoutingProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The "fastest equivalent" routing policy. A request for provider
+ * {@value #PROVIDER} names a group of interchangeable models from
+ * {@code ai.routing.equivalents} as its model, and each call goes to the
+ * member expected to answer soonest.
+ * <p>
+ * Every real model call, routed or not, feeds an exponentially weighted
+ * average of its model's latency and error rate. A member's score is its
+ * average latency divided by its success rate, i.e. the expected time to
+ * a successful answer, so a provider that slows down or starts failing is
+ * dropped in favour of its equivalents. Members with too few calls are
+ * tried first, and a small share of calls goes to a random member so a
+ * recovered provider wins its traffic back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ModelRouter {
+
+    public static final String PROVIDER = "fastest";
+
+    // keeps a model that always fails comparable instead of dividing by zero
+    private static final double MIN_SUCCESS_RATE = 0.01;
+
+    private final RoutingProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, List<ExecutionEngine.Target>> groups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ExecutionEngine.Target, Health> health = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        properties.getEquivalents().forEach((group, members) -> {
+            List<ExecutionEngine.Target> targets = new ArrayList<>();
+            for (String member : members) {
+                int colon = member.indexOf(':');
+                if (colon <= 0 || colon == member.length() - 1) {
+                    throw new IllegalStateException("ai.routing.equivalents." + group
+                            + ": expected provider:model, got " + member);
+                }
+                targets.add(new ExecutionEngine.Target(member.substring(0, colon), member.substring(colon + 1)));
+            }
+            if (targets.isEmpty()) {
+                throw new IllegalStateException("ai.routing.equivalents." + group + " has no models");
+            }
+            groups.put(group, List.copyOf(targets));
+        });
+    }
+
+    public boolean isGroup(String group) {
+        return groups.containsKey(group);
+    }
+
+    public List<ExecutionEngine.Target> members(String group) {
+        List<ExecutionEngine.Target> members = groups.get(group);
+        if (members == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown model group: " + group + "; configured groups are " + groups.keySet());
+        }
+        return members;
+    }
+
+    /**
+     * The member of {@code group} to send the next call to. Members that
+     * fail {@code available}, e.g. for want of an API key, are passed over
+     * unless none is left.
+     */
+    public ExecutionEngine.Target choose(String group, Predicate<ExecutionEngine.Target> available) {
+        List<ExecutionEngine.Target> candidates = members(group).stream().filter(available).toList();
+        if (candidates.isEmpty()) {
+            candidates = members(group);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<ExecutionEngine.Target> unmeasured = candidates.stream()
+                .filter(target -> healthOf(target).samples() < properties.getMinSamples())
+                .toList();
+        if (!unmeasured.isEmpty()) {
+            return unmeasured.get(random.nextInt(unmeasured.size()));
+        }
+        if (random.nextDouble() < properties.getExploreFraction()) {
+            return candidates.get(random.nextInt(candidates.size()));
+        }
+
+        ExecutionEngine.Target best = null;
+        double bestScore = Double.POSITIVE_INFINITY;
+        for (ExecutionEngine.Target target : candidates) {
+            double score = healthOf(target).score();
+            if (best == null || score < bestScore) {
+                best = target;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Records one finished model call, including its retries.
+     */
+    public void record(String provider, String modelName, long latencyMs, boolean failed) {
+        healthOf(new ExecutionEngine.Target(provider, modelName)).record(latencyMs, failed, properties.getEwmaAlpha());
+    }
+
+    private Health healthOf(ExecutionEngine.Target target) {
+        return health.computeIfAbsent(target, key -> {
+            Health created = new Health();
+            Gauge.builder("llm.route.latency.ewma", created, Health::latencyMs)
+                    .tags("provider", key.provider(), "model", key.modelName())
+                    .register(meterRegistry);
+            Gauge.builder("llm.route.error.ewma", created, Health::errorRate)
+                    .tags("provider", key.provider(), "model", key.modelName())
+                    .register(meterRegistry);
+            return created;
+        });
+    }
+
+    /**
+     * Moving averages of one model's calls. Latency only moves on successes,
+     * since failures are often quick rejections that would flatter it.
+     */
+    private static final class Health {
+
+        private long samples;
+        private double latencyMs = Double.NaN;  // until the first success
+        private double errorRate;
+
+        synchronized void record(long callMs, boolean failed, double alpha) {
+            samples++;
+            errorRate += alpha * ((failed ? 1 : 0) - errorRate);
+            if (!failed) {
+                latencyMs = Double.isNaN(latencyMs) ? callMs : latencyMs + alpha * (callMs - latencyMs);
+            }
+        }
+
+        synchronized long samples() {
+            return samples;
+        }
+
+        synchronized double latencyMs() {
+            return latencyMs;
+        }
+
+        synchronized double errorRate() {
+            return errorRate;
+        }
+
+        // expected time to a successful answer
+        synchronized double score() {
+            if (Double.isNaN(latencyMs)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return latencyMs / Math.max(MIN_SUCCESS_RATE, 1 - errorRate);
+        }
+    }
+}
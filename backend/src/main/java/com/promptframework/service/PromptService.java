@@ -3,8 +3,11 @@ package com.promptframework.service;
 import com.promptframework.mapper.PromptMapper;
 import com.promptframework.mapper.PromptVersionMapper;
 import com.promptframework.model.dto.PromptCreateRequest;
+import com.promptframework.model.dto.PromptPage;
 import com.promptframework.model.dto.PromptResponse;
+import com.promptframework.model.dto.VersionDiff;
 import com.promptframework.model.entity.Prompt;
+import com.promptframework.model.entity.PromptSummary;
 import com.promptframework.model.entity.PromptVersion;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -16,8 +19,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PromptService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final PromptMapper promptMapper;
     private final PromptVersionMapper promptVersionMapper;
+    private final PromptTemplateService promptTemplateService;
 
     @Transactional
     public PromptResponse createPrompt(PromptCreateRequest request) {
@@ -26,25 +32,33 @@ public class PromptService {
         prompt.setDescription(request.getDescription());
         promptMapper.insert(prompt);
 
-        PromptVersion version = new PromptVersion();
-        version.setPromptId(prompt.getId());
-        version.setVersionNumber(1);
-        version.setContent(request.getInitialContent());
-        promptVersionMapper.insert(version);
+        insertVersion(prompt.getId(), promptMapper.allocateVersionNumber(prompt.getId()), request.getInitialContent());
 
         return buildPromptResponse(prompt);
     }
 
     @Transactional
     public PromptVersion createNewVersion(Long promptId, String content) {
-        Integer nextVersion = promptVersionMapper.getNextVersionNumber(promptId);
+        Integer nextVersion = promptMapper.allocateVersionNumber(promptId);
+        if (nextVersion == null) {
+            throw new RuntimeException("Prompt not found: " + promptId);
+        }
+        return insertVersion(promptId, nextVersion, content);
+    }
 
+    /**
+     * Content is stored once per hash; a version that repeats earlier text
+     * only adds a row pointing at it.
+     */
+    private PromptVersion insertVersion(Long promptId, int versionNumber, String content) {
         PromptVersion version = new PromptVersion();
         version.setPromptId(promptId);
-        version.setVersionNumber(nextVersion);
+        version.setVersionNumber(versionNumber);
         version.setContent(content);
+        version.setContentHash(ContentHash.of(content));
+        version.setVariables(promptTemplateService.compile(content).getVariables());
+        promptVersionMapper.insertContent(version.getContentHash(), content);
         promptVersionMapper.insert(version);
-
         return version;
     }
 
@@ -64,8 +78,53 @@ public class PromptService {
         return version;
     }
 
-    public List<Prompt> getAllPrompts() {
-        return promptMapper.findAll();
+    /**
+     * The version with its full content, provided it belongs to the prompt.
+     */
+    public PromptVersion getVersion(Long promptId, Long versionId) {
+        PromptVersion version = getVersion(versionId);
+        if (!version.getPromptId().equals(promptId)) {
+            throw new RuntimeException("Version not found: " + versionId);
+        }
+        return version;
+    }
+
+    /**
+     * Line diff between two versions of the prompt. Versions with the same
+     * content hash are reported identical without comparing the text.
+     */
+    public VersionDiff diffVersions(Long promptId, Long fromVersionId, Long toVersionId) {
+        PromptVersion from = getVersion(promptId, fromVersionId);
+        PromptVersion to = getVersion(promptId, toVersionId);
+
+        VersionDiff diff = new VersionDiff();
+        diff.setFromVersionId(fromVersionId);
+        diff.setToVersionId(toVersionId);
+        diff.setIdentical(from.getContentHash().equals(to.getContentHash()));
+        diff.setLines(diff.isIdentical() ? List.of() : LineDiff.diff(from.getContent(), to.getContent()));
+        for (VersionDiff.Line line : diff.getLines()) {
+            switch (line.getType()) {
+                case "ADDED" -> diff.setAdded(diff.getAdded() + 1);
+                case "REMOVED" -> diff.setRemoved(diff.getRemoved() + 1);
+                default -> {
+                }
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Newest-first page of the prompt library. Versions are only counted;
+     * open a prompt to list them.
+     */
+    public PromptPage getPrompts(Long beforeId, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<PromptSummary> rows = promptMapper.findPage(beforeId, pageSize);
+
+        PromptPage page = new PromptPage();
+        page.setItems(rows);
+        page.setNextCursor(rows.size() == pageSize ? rows.get(rows.size() - 1).getId() : null);
+        return page;
     }
 
     private PromptResponse buildPromptResponse(Prompt prompt) {
@@ -76,8 +135,7 @@ public class PromptService {
         response.setCreatedAt(prompt.getCreatedAt());
         response.setUpdatedAt(prompt.getUpdatedAt());
 
-        List<PromptVersion> versions = promptVersionMapper.findByPromptId(prompt.getId());
-        response.setVersions(versions);
+        response.setVersions(promptVersionMapper.findHeadersByPromptId(prompt.getId()));
 
         return response;
     }
@@ -0,0 +1,69 @@
+package com.promptframework.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.promptframework.model.entity.PromptVersion;
+import com.promptframework.template.PromptTemplate;
+
+/**
+ * Compiles prompt templates. Versions are immutable, so their compiled form
+ * is cached by content hash, which also shares one entry between versions
+ * with identical text.
+ */
+@Service
+public class PromptTemplateService {
+
+    private final Cache<String, PromptTemplate> compiledVersions;
+
+    public PromptTemplateService(@Value("${ai.templates.cache-size:1000}") long cacheSize) {
+        this.compiledVersions = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    public PromptTemplate forVersion(PromptVersion version) {
+        return compiledVersions.get(version.getContentHash(), hash -> PromptTemplate.compile(version.getContent()));
+    }
+
+    public PromptTemplate compile(String content) {
+        return PromptTemplate.compile(content);
+    }
+
+    /**
+     * Rejects the request before any model call if an input does not bind
+     * every variable of the template.
+     */
+    public void validateInputs(PromptTemplate template, List<Map<String, String>> inputs) {
+        for (int i = 0; i < inputs.size(); i++) {
+            Set<String> missing = template.missingVariables(inputs.get(i));
+            if (!missing.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Test input " + (i + 1) + " is missing variables: " + String.join(", ", missing));
+            }
+        }
+    }
+
+    /**
+     * Rejects a dataset run before any model call if the dataset lacks a
+     * column for a variable of the template.
+     */
+    public void validateColumns(PromptTemplate template, Collection<String> columns) {
+        List<String> missing = template.getVariables().stream()
+                .filter(variable -> !columns.contains(variable))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Dataset is missing columns for variables: " + String.join(", ", missing));
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.promptframework.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.promptframework.config.ExecutionProperties;
+import com.promptframework.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client-side rate limiting per provider, model and API key. Each key has
+ * token buckets for its requests-per-minute and tokens-per-minute budgets,
+ * and an adaptive concurrency limit. The limit grows by one per limit's
+ * worth of successful calls and is cut multiplicatively on a 429 (AIMD). A
+ * 429 also pauses the key for its Retry-After, so every caller backs off
+ * together instead of retrying into the same wall.
+ * <p>
+ * The adaptive limit is capped by the ExecutionEngine bound for the model.
+ */
+@Service
+@Slf4j
+public class ProviderRateLimiter {
+
+    private final RateLimitProperties properties;
+    private final ExecutionProperties executionProperties;
+    private final MeterRegistry meterRegistry;
+    private final Cache<LimiterKey, Limiter> limiters = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public ProviderRateLimiter(RateLimitProperties properties, ExecutionProperties executionProperties,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executionProperties = executionProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Blocks until the key has a free slot and budget for a call of about
+     * {@code estimatedTokens}. The permit must be released exactly once.
+     */
+    public Permit acquire(String provider, String modelName, String apiKey, int estimatedTokens)
+            throws InterruptedException {
+        LimiterKey key = new LimiterKey(provider, modelName, apiKey == null ? "" : hash(apiKey));
+        Limiter limiter = limiters.get(key, this::newLimiter);
+        return limiter.acquire(estimatedTokens);
+    }
+
+    /**
+     * Like {@link #acquire} but never waits: null when the key has no free
+     * slot or budget right now. For optional calls such as hedges.
+     */
+    public Permit tryAcquire(String provider, String modelName, String apiKey, int estimatedTokens) {
+        LimiterKey key = new LimiterKey(provider, modelName, apiKey == null ? "" : hash(apiKey));
+        return limiters.get(key, this::newLimiter).tryAcquire(estimatedTokens);
+    }
+
+    public double currentLimit(String provider, String modelName, String apiKey) {
+        Limiter limiter = limiters.getIfPresent(new LimiterKey(provider, modelName, apiKey == null ? "" : hash(apiKey)));
+        return limiter == null ? executionProperties.concurrencyFor(provider, modelName) : limiter.limit;
+    }
+
+    private Limiter newLimiter(LimiterKey key) {
+        RateLimitProperties.Budget budget = properties.budgetFor(key.provider(), key.modelName());
+        return new Limiter(key,
+                budget.getRequestsPerMinute(),
+                budget.getTokensPerMinute(),
+                executionProperties.concurrencyFor(key.provider(), key.modelName()));
+    }
+
+    private static String hash(String apiKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record LimiterKey(String provider, String modelName, String apiKeyHash) {
+
+    }
+
+    /**
+     * A reserved call slot. Report how the call went through one of the
+     * release methods.
+     */
+    public interface Permit {
+
+        void success(int actualTokens);
+
+        void rateLimited(Duration retryAfter);
+
+        void failed();
+    }
+
+    private final class Limiter {
+
+        private final LimiterKey key;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final TokenBucket requests;
+        private final TokenBucket tokens;
+        private final int maxLimit;
+
+        private volatile double limit;
+        private int inFlight;
+        private long pausedUntilNanos;
+
+        Limiter(LimiterKey key, int requestsPerMinute, int tokensPerMinute, int maxLimit) {
+            this.key = key;
+            this.requests = new TokenBucket(requestsPerMinute);
+            this.tokens = new TokenBucket(tokensPerMinute);
+            this.maxLimit = Math.max(1, maxLimit);
+            this.limit = this.maxLimit;
+        }
+
+        Permit acquire(int estimatedTokens) throws InterruptedException {
+            lock.lock();
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    long waitNanos;
+                    if (pausedUntilNanos - now > 0) {
+                        waitNanos = pausedUntilNanos - now;
+                    } else if (inFlight >= (int) limit) {
+                        waitNanos = Long.MAX_VALUE;
+                    } else {
+                        waitNanos = Math.max(requests.waitNanos(1, now), tokens.waitNanos(estimatedTokens, now));
+                        if (waitNanos == 0) {
+                            requests.take(1, now);
+                            tokens.take(estimatedTokens, now);
+                            inFlight++;
+                            return new LimiterPermit(this, estimatedTokens);
+                        }
+                        meterRegistry.counter("llm.ratelimit.throttled",
+                                "provider", key.provider(), "model", key.modelName()).increment();
+                    }
+                    if (waitNanos == Long.MAX_VALUE) {
+                        changed.await();
+                    } else {
+                        changed.awaitNanos(waitNanos);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Permit tryAcquire(int estimatedTokens) {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                if (pausedUntilNanos - now > 0 || inFlight >= (int) limit
+                        || requests.waitNanos(1, now) > 0 || tokens.waitNanos(estimatedTokens, now) > 0) {
+                    return null;
+                }
+                requests.take(1, now);
+                tokens.take(estimatedTokens, now);
+                inFlight++;
+                return new LimiterPermit(this, estimatedTokens);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(int estimatedTokens, int actualTokens, Outcome outcome, Duration retryAfter) {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                inFlight--;
+                if (actualTokens >= 0) {
+                    // settle the up-front estimate against real usage; may go into debt
+                    tokens.take(actualTokens - estimatedTokens, now);
+                }
+                switch (outcome) {
+                    case SUCCESS -> limit = Math.min(maxLimit, limit + 1.0 / limit);
+                    case RATE_LIMITED -> {
+                        limit = Math.max(1, limit * properties.getDecreaseFactor());
+                        Duration pause = retryAfter != null ? retryAfter : properties.getInitialBackoff();
+                        pausedUntilNanos = Math.max(pausedUntilNanos, now + pause.toNanos());
+                        meterRegistry.counter("llm.ratelimit.rejections",
+                                "provider", key.provider(), "model", key.modelName()).increment();
+                        log.warn("Rate limited by {}:{}, concurrency limit now {}, pausing {} ms",
+                                key.provider(), key.modelName(), (int) limit, pause.toMillis());
+                    }
+                    case FAILED -> {
+                        // not a capacity signal; leave the limit alone
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS,
+        RATE_LIMITED,
+        FAILED
+    }
+
+    private static final class LimiterPermit implements Permit {
+
+        private final Limiter limiter;
+        private final int estimatedTokens;
+        private boolean released;
+
+        LimiterPermit(Limiter limiter, int estimatedTokens) {
+            this.limiter = limiter;
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        @Override
+        public void success(int actualTokens) {
+            release(actualTokens, Outcome.SUCCESS, null);
+        }
+
+        @Override
+        public void rateLimited(Duration retryAfter) {
+            release(-1, Outcome.RATE_LIMITED, retryAfter);
+        }
+
+        @Override
+        public void failed() {
+            release(-1, Outcome.FAILED, null);
+        }
+
+        private void release(int actualTokens, Outcome outcome, Duration retryAfter) {
+            if (released) {
+                return;
+            }
+            released = true;
+            limiter.release(estimatedTokens, actualTokens, outcome, retryAfter);
+        }
+    }
+
+    /**
+     * Per-minute budget refilled continuously. Not thread-safe; guarded by
+     * the owning limiter's lock.
+     */
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double refillPerNano;
+        private double available;
+        private long lastRefillNanos;
+
+        TokenBucket(int perMinute) {
+            this.capacity = perMinute;
+            this.refillPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.available = perMinute;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        long waitNanos(int amount, long now) {
+            if (capacity <= 0) {
+                return 0;
+            }
+            refill(now);
+            // a single call larger than the whole budget waits for a full bucket
+            double needed = Math.min(amount, capacity);
+            if (available >= needed) {
+                return 0;
+            }
+            return (long) Math.ceil((needed - available) / refillPerNano);
+        }
+
+        void take(int amount, long now) {
+            if (capacity <= 0) {
+                return;
+            }
+            refill(now);
+            available = Math.min(capacity, available - Math.min(amount, capacity));
+        }
+
+        private void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
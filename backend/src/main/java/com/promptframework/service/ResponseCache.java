@@ -0,0 +1,109 @@
+package com.promptframework.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opt-in Redis cache of model responses, keyed by a SHA-256 of provider,
+ * model and the fully resolved prompt. Entries expire after the TTL, and an
+ * insertion-ordered index trims the oldest entries beyond max-entries.
+ * Redis failures are treated as misses so a cache outage never fails a run.
+ */
+@Service
+@Slf4j
+public class ResponseCache {
+
+    private static final String KEY_PREFIX = "llm:response:";
+    private static final String INDEX_KEY = "llm:response:index";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final long maxEntries;
+    private final String keyVersion;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ResponseCache(RedisTemplate<String, Object> redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${ai.cache.enabled:false}") boolean enabled,
+            @Value("${ai.cache.ttl:24h}") Duration ttl,
+            @Value("${ai.cache.max-entries:10000}") long maxEntries,
+            @Value("${ai.cache.key-version:1}") String keyVersion) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.keyVersion = keyVersion;
+        this.hits = meterRegistry.counter("llm.response.cache", "result", "hit");
+        this.misses = meterRegistry.counter("llm.response.cache", "result", "miss");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String key(String resolvedPrompt, String provider, String modelName) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[] {keyVersion, provider, modelName, resolvedPrompt}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return KEY_PREFIX + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public AIExecutionService.AIResponse get(String key) {
+        try {
+            Object cached = redisTemplate.opsForValue().get(key);
+            if (cached instanceof AIExecutionService.AIResponse response) {
+                hits.increment();
+                return response;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Response cache lookup failed, treating as miss", e);
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, AIExecutionService.AIResponse response) {
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForValue().set(key, response, ttl);
+
+            ZSetOperations<String, Object> index = redisTemplate.opsForZSet();
+            index.add(INDEX_KEY, key, now);
+            // drop index entries whose values have already expired
+            index.removeRangeByScore(INDEX_KEY, 0, now - ttl.toMillis());
+
+            Long size = index.zCard(INDEX_KEY);
+            if (size != null && size > maxEntries) {
+                Set<ZSetOperations.TypedTuple<Object>> evicted = index.popMin(INDEX_KEY, size - maxEntries);
+                if (evicted != null) {
+                    for (ZSetOperations.TypedTuple<Object> entry : evicted) {
+                        redisTemplate.delete(String.valueOf(entry.getValue()));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Response cache write failed", e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.promptframework.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promptframework.mapper.TestResultMapper;
+import com.promptframework.model.dto.ResultExportFilter;
+import com.promptframework.model.entity.ResultExportRow;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes results as CSV or JSONL straight from a database cursor. Each row
+ * is written and dropped before the next is fetched, so an export of any
+ * size holds one fetch of rows. Long responses are exported in full.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResultExportService {
+
+    private static final String[] CSV_COLUMNS = {
+            "test_run_id", "prompt_version_id", "version_number", "ai_provider", "model_name", "served_by",
+            "result_id", "input_index", "input_variables", "status", "ai_response", "error_message",
+            "response_time_ms", "time_to_first_token_ms", "prompt_tokens", "completion_tokens", "token_count",
+            "cost_usd", "quality_score", "created_at"
+    };
+
+    private final TestResultMapper testResultMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        JSONL("application/x-ndjson", "jsonl");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Streams every result matching the filter to {@code out}, ordered by
+     * run and input. The cursor needs a transaction, which holds one
+     * connection for the length of the download.
+     */
+    public void export(ResultExportFilter filter, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(String.join(",", CSV_COLUMNS));
+            writer.write("\r\n");
+        }
+        long[] count = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Cursor<ResultExportRow> cursor = testResultMapper.streamForExport(filter)) {
+                    for (ResultExportRow row : cursor) {
+                        if (format == Format.CSV) {
+                            writeCsv(writer, row);
+                        } else {
+                            writer.write(objectMapper.writeValueAsString(toJson(row)));
+                            writer.write('\n');
+                        }
+                        count[0]++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // usually the client went away mid-download
+            throw e.getCause();
+        }
+        writer.flush();
+        log.debug("Exported {} results as {}", count[0], format);
+    }
+
+    private void writeCsv(Writer writer, ResultExportRow row) throws IOException {
+        Object[] values = {
+                row.getTestRunId(), row.getPromptVersionId(), row.getVersionNumber(), row.getAiProvider(),
+                row.getModelName(), row.getServedBy(), row.getId(), row.getInputIndex(),
+                row.getInputVariables() == null ? null : objectMapper.writeValueAsString(row.getInputVariables()),
+                row.getStatus(), responseOf(row), row.getErrorMessage(),
+                row.getResponseTimeMs(), row.getTimeToFirstTokenMs(), row.getPromptTokens(), row.getCompletionTokens(),
+                row.getTokenCount(), row.getCostUsd(),
+                row.getQualityScore(), row.getCreatedAt()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvField(writer, values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: quote fields holding a separator, quote or line break
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private Map<String, Object> toJson(ResultExportRow row) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("testRunId", row.getTestRunId());
+        json.put("promptVersionId", row.getPromptVersionId());
+        json.put("versionNumber", row.getVersionNumber());
+        json.put("aiProvider", row.getAiProvider());
+        json.put("modelName", row.getModelName());
+        json.put("servedBy", row.getServedBy());
+        json.put("resultId", row.getId());
+        json.put("inputIndex", row.getInputIndex());
+        json.put("inputVariables", row.getInputVariables());
+        json.put("status", row.getStatus());
+        json.put("aiResponse", responseOf(row));
+        json.put("errorMessage", row.getErrorMessage());
+        json.put("responseTimeMs", row.getResponseTimeMs());
+        json.put("timeToFirstTokenMs", row.getTimeToFirstTokenMs());
+        json.put("promptTokens", row.getPromptTokens());
+        json.put("completionTokens", row.getCompletionTokens());
+        json.put("tokenCount", row.getTokenCount());
+        json.put("costUsd", row.getCostUsd());
+        json.put("qualityScore", row.getQualityScore());
+        json.put("createdAt", row.getCreatedAt());
+        return json;
+    }
+
+    private static String responseOf(ResultExportRow row) {
+        return row.getFullResponse() != null ? row.getFullResponse() : row.getAiResponse();
+    }
+}
@@ -0,0 +1,209 @@
+package com.promptframework.service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.promptframework.model.dto.TestRunRequest;
+import com.promptframework.model.entity.QualityStats;
+
+/**
+ * Decides when a sequentially sampled run has seen enough. Quality scores
+ * stream into a running mean and variance as the judge returns them, and
+ * the run stops taking inputs once the confidence interval of the mean is
+ * narrow enough, or once its mean differs from a baseline run's.
+ * <p>
+ * The rules are only checked at a fixed schedule of sample sizes, starting
+ * at {@code ai.sampling.min-samples} and growing by
+ * {@code ai.sampling.look-growth} each time. The significance level is
+ * split evenly over every check the run could make (Bonferroni), so
+ * checking repeatedly does not inflate the false-positive rate. Intervals
+ * use the normal approximation, which the minimum sample size keeps honest.
+ */
+@Service
+public class SamplingPolicy {
+
+    public static final String INTERVAL_WIDTH = "INTERVAL_WIDTH";
+    public static final String SIGNIFICANT = "SIGNIFICANT";
+
+    @Value("${ai.sampling.min-samples:30}")
+    private int minSamples;
+
+    @Value("${ai.sampling.look-growth:1.25}")
+    private double lookGrowth;
+
+    @Value("${ai.sampling.confidence:0.95}")
+    private double defaultConfidence;
+
+    @Value("${ai.sampling.significance:0.05}")
+    private double defaultSignificance;
+
+    /**
+     * A sampler for a run of {@code totalInputs} inputs. {@code baseline}
+     * holds the quality scores of the run to compare against, or is null
+     * when only the interval width is targeted.
+     */
+    public Sampler samplerFor(TestRunRequest.Sampling request, int totalInputs, QualityStats baseline) {
+        double confidence = request.getConfidence() != null ? request.getConfidence() : defaultConfidence;
+        double significance = request.getSignificance() != null ? request.getSignificance() : defaultSignificance;
+        double intervalZ = normalQuantile(1 - (1 - confidence) / 2);
+        double significanceZ = normalQuantile(1 - significance / (2 * looksWithin(totalInputs)));
+        return new Sampler(request.getMaxIntervalWidth(), intervalZ, baseline, significanceZ,
+                Math.max(2, minSamples), Math.max(1.01, lookGrowth));
+    }
+
+    // checks a run of this size can make at most
+    private int looksWithin(int totalInputs) {
+        int looks = 1;
+        double look = Math.max(2, minSamples);
+        while ((look = Math.max(look + 1, Math.ceil(look * lookGrowth))) <= totalInputs) {
+            looks++;
+        }
+        return looks;
+    }
+
+    /**
+     * Inverse of the standard normal CDF, by Acklam's rational approximation
+     * (relative error below 1.2e-9).
+     */
+    static double normalQuantile(double p) {
+        if (p <= 0 || p >= 1) {
+            throw new IllegalArgumentException("Probability must be in (0, 1): " + p);
+        }
+        final double pLow = 0.02425;
+        if (p < pLow) {
+            return tail(Math.sqrt(-2 * Math.log(p)));
+        }
+        if (p > 1 - pLow) {
+            return -tail(Math.sqrt(-2 * Math.log(1 - p)));
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((-3.969683028665376e+01 * r + 2.209460984245205e+02) * r - 2.759285104469687e+02) * r
+                + 1.383577518672690e+02) * r - 3.066479806614716e+01) * r + 2.506628277459239e+00) * q
+                / (((((-5.447609879822406e+01 * r + 1.615858368580409e+02) * r - 1.556989798598866e+02) * r
+                + 6.680131188771972e+01) * r - 1.328068155288572e+01) * r + 1);
+    }
+
+    private static double tail(double q) {
+        return (((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q
+                - 2.549732539343734e+00) * q + 4.374664141464968e+00) * q + 2.938163982698783e+00)
+                / ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q
+                + 3.754408661907416e+00) * q + 1);
+    }
+
+    /**
+     * Why a run stopped, and the estimate it stopped on. {@code zScore} is
+     * the difference to the baseline in standard errors, or null without
+     * a baseline or when neither run's scores vary.
+     */
+    public record Decision(String reason, long samples, double qualityMean, double intervalHalfWidth,
+            Double zScore) {
+
+    }
+
+    /**
+     * Running estimate for one run. Scores arrive from the job thread and
+     * from judge workers, so updates are synchronized; the job thread only
+     * reads the volatile decision.
+     */
+    public static final class Sampler {
+
+        private final Double maxIntervalWidth;
+        private final double intervalZ;
+        private final QualityStats baseline;
+        private final double significanceZ;
+        private final double lookGrowth;
+        private final AtomicInteger taken = new AtomicInteger();
+
+        // Welford's online mean and sum of squared deviations
+        private long count;
+        private double mean;
+        private double m2;
+        private long nextLook;
+        private volatile Decision decision;
+
+        Sampler(Double maxIntervalWidth, double intervalZ, QualityStats baseline, double significanceZ,
+                int minSamples, double lookGrowth) {
+            this.maxIntervalWidth = maxIntervalWidth;
+            this.intervalZ = intervalZ;
+            this.baseline = baseline;
+            this.significanceZ = significanceZ;
+            this.lookGrowth = lookGrowth;
+            this.nextLook = minSamples;
+        }
+
+        /**
+         * Adds a quality score. Returns the decision if this score stopped
+         * the run, null otherwise; scores after the stop are ignored.
+         */
+        public synchronized Decision record(double score) {
+            if (decision != null) {
+                return null;
+            }
+            count++;
+            double delta = score - mean;
+            mean += delta / count;
+            m2 += delta * (score - mean);
+            if (count < nextLook) {
+                return null;
+            }
+            nextLook = Math.max(count + 1, (long) Math.ceil(nextLook * lookGrowth));
+
+            double variance = m2 / (count - 1);
+            double halfWidth = intervalZ * Math.sqrt(variance / count);
+            Double zScore = null;
+            if (baseline != null) {
+                double standardError = Math.sqrt(variance / count + baseline.getVariance() / baseline.getCount());
+                // with no spread on either side there is nothing to measure a difference in, so no verdict
+                if (standardError > 0) {
+                    double z = (mean - baseline.getMean()) / standardError;
+                    zScore = Double.isNaN(z) ? null : z;
+                }
+            }
+            if (maxIntervalWidth != null && 2 * halfWidth <= maxIntervalWidth) {
+                decision = new Decision(INTERVAL_WIDTH, count, mean, halfWidth, zScore);
+            } else if (zScore != null && Math.abs(zScore) >= significanceZ) {
+                decision = new Decision(SIGNIFICANT, count, mean, halfWidth, zScore);
+            }
+            return decision;
+        }
+
+        public Decision getDecision() {
+            return decision;
+        }
+
+        /**
+         * Inputs handed out so far, i.e. model calls made or in flight.
+         */
+        public int getTaken() {
+            return taken.get();
+        }
+
+        /**
+         * Passes inputs through until the run has stopped. Calls already in
+         * flight at that point still finish and are recorded.
+         */
+        public <T> Iterator<T> until(Iterator<T> inputs) {
+            return new Iterator<>() {
+
+                @Override
+                public boolean hasNext() {
+                    return decision == null && inputs.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    taken.incrementAndGet();
+                    return inputs.next();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.promptframework.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.promptframework.mapper.TestResultMapper;
+import com.promptframework.mapper.TestRunMapper;
+import com.promptframework.mapper.TestRunMetricsMapper;
+import com.promptframework.model.entity.TestResult;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Buffers finished results and writes them with one multi-row insert per
+ * flush instead of a round trip per row. The run's progress counters and
+ * stored metrics are updated in the same transaction. Responses longer than
+ * the preview are stored compressed in test_result_bodies; the results
+ * handed to afterFlush still carry the full text.
+ */
+@Service
+@RequiredArgsConstructor
+public class TestResultBatchWriter {
+
+    // keeps a single INSERT well under PostgreSQL's 32767 bind parameter limit
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    @Value("${ai.persistence.batch-size:50}")
+    private int batchSize;
+
+    @Value("${ai.persistence.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${ai.persistence.response-preview-chars:1000}")
+    private int previewChars;
+
+    private final TestResultMapper testResultMapper;
+    private final TestRunMapper testRunMapper;
+    private final TestRunMetricsMapper testRunMetricsMapper;
+    private final MetricsService metricsService;
+    private final TransactionTemplate transactionTemplate;
+
+    public Batch open(Long testRunId) {
+        return open(testRunId, flushed -> {
+        });
+    }
+
+    /**
+     * @param afterFlush receives every flushed chunk, with generated ids set
+     */
+    public Batch open(Long testRunId, Consumer<List<TestResult>> afterFlush) {
+        return new Batch(testRunId, afterFlush);
+    }
+
+    /**
+     * Pending writes for one run. Not thread-safe: owned by the job thread.
+     * Flushes once the buffer reaches the batch size, or when the flush
+     * interval has passed so progress stays live for slow models.
+     */
+    public class Batch {
+
+        private final Long testRunId;
+        private final Consumer<List<TestResult>> afterFlush;
+        private List<TestResult> pending = new ArrayList<>();
+        private int pendingFailures;
+        private long lastFlushNanos = System.nanoTime();
+
+        private Batch(Long testRunId, Consumer<List<TestResult>> afterFlush) {
+            this.testRunId = testRunId;
+            this.afterFlush = afterFlush;
+        }
+
+        public void add(TestResult result) {
+            pending.add(result);
+            flushIfDue();
+        }
+
+        public void addFailure() {
+            pendingFailures++;
+            flushIfDue();
+        }
+
+        public void flush() {
+            if (pending.isEmpty() && pendingFailures == 0) {
+                return;
+            }
+            List<TestResult> results = pending;
+            int failures = pendingFailures;
+            // FAILED results are stored for inspection but count as failed inputs
+            int failedResults = (int) results.stream().filter(r -> "FAILED".equals(r.getStatus())).count();
+            List<TestResult> longResponses = new ArrayList<>();
+            for (TestResult result : results) {
+                String text = result.getAiResponse();
+                result.setResponseLength(text == null ? null : text.codePointCount(0, text.length()));
+                if (text != null && result.getResponseLength() > previewChars) {
+                    longResponses.add(result);
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!results.isEmpty()) {
+                    testResultMapper.insertBatch(results, previewChars);
+                }
+                if (!longResponses.isEmpty()) {
+                    testResultMapper.insertBodies(longResponses);
+                }
+                testRunMapper.recordProgress(testRunId, results.size() - failedResults, failures + failedResults);
+                testRunMetricsMapper.merge(metricsService.accumulate(testRunId, results, failures));
+            });
+            pending = new ArrayList<>();
+            pendingFailures = 0;
+            lastFlushNanos = System.nanoTime();
+            if (!results.isEmpty()) {
+                afterFlush.accept(results);
+            }
+        }
+
+        private void flushIfDue() {
+            int size = pending.size() + pendingFailures;
+            long sinceFlushMs = (System.nanoTime() - lastFlushNanos) / 1_000_000;
+            if (size >= Math.min(Math.max(batchSize, 1), MAX_BATCH_SIZE) || sinceFlushMs >= flushIntervalMs) {
+                flush();
+            }
+        }
+    }
+}
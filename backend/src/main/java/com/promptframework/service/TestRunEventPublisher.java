@@ -0,0 +1,94 @@
+package com.promptframework.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans live events of running test-run jobs out to SSE subscribers.
+ * Publishing to a run nobody watches is a map lookup and nothing more.
+ */
+@Service
+@Slf4j
+public class TestRunEventPublisher {
+
+    // weak keys compare by identity and let a lock go with its emitter
+    private static final Cache<SseEmitter, Lock> SEND_LOCKS = Caffeine.newBuilder().weakKeys().build();
+
+    private final ConcurrentMap<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${ai.streaming.timeout-ms:600000}")
+    private long streamTimeoutMs;
+
+    /**
+     * Streams a run's events until it finishes, or until the timeout, after
+     * which the client reconnects to keep watching a long run.
+     */
+    public SseEmitter subscribe(Long testRunId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        subscribers.computeIfAbsent(testRunId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(testRunId, emitter));
+        emitter.onTimeout(() -> unsubscribe(testRunId, emitter));
+        emitter.onError(error -> unsubscribe(testRunId, emitter));
+        return emitter;
+    }
+
+    public void publish(Long testRunId, String event, Object data) {
+        List<SseEmitter> emitters = subscribers.get(testRunId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            if (!send(emitter, event, data)) {
+                unsubscribe(testRunId, emitter);
+            }
+        }
+    }
+
+    public void complete(Long testRunId) {
+        List<SseEmitter> emitters = subscribers.remove(testRunId);
+        if (emitters != null) {
+            emitters.forEach(SseEmitter::complete);
+        }
+    }
+
+    /**
+     * Sends one event. Emitters are shared by the virtual threads of a run,
+     * so writes are serialised per emitter, by a lock rather than a monitor
+     * so a thread blocked on a slow client does not pin its carrier. Returns
+     * false once the client has gone away.
+     */
+    public static boolean send(SseEmitter emitter, String event, Object data) {
+        Lock lock = SEND_LOCKS.get(emitter, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE client disconnected: {}", e.getMessage());
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unsubscribe(Long testRunId, SseEmitter emitter) {
+        subscribers.computeIfPresent(testRunId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
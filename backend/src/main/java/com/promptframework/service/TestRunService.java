@@ -1,21 +1,52 @@
 package com.promptframework.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.promptframework.config.ModelPricingProperties;
+import com.promptframework.config.RateLimitProperties;
+import com.promptframework.mapper.MatrixRunMapper;
 import com.promptframework.mapper.TestResultMapper;
 import com.promptframework.mapper.TestRunMapper;
+import com.promptframework.mapper.TestRunMetricsMapper;
+import com.promptframework.model.dto.MatrixRunRequest;
+import com.promptframework.model.dto.MatrixRunResponse;
+import com.promptframework.model.dto.RunEstimate;
+import com.promptframework.model.dto.TestRunPage;
 import com.promptframework.model.dto.TestRunRequest;
 import com.promptframework.model.dto.TestRunResponse;
+import com.promptframework.model.entity.Dataset;
+import com.promptframework.model.entity.DatasetRow;
+import com.promptframework.model.entity.MatrixRun;
 import com.promptframework.model.entity.PromptVersion;
+import com.promptframework.model.entity.QualityStats;
 import com.promptframework.model.entity.TestResult;
+import com.promptframework.model.entity.TestResultBody;
 import com.promptframework.model.entity.TestRun;
+import com.promptframework.model.entity.TestRunSummary;
+import com.promptframework.template.PromptTemplate;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,75 +56,760 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TestRunService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_REPORTED_OVERFLOWS = 100;
+
+    @Value("${ai.matrix.max-cells:50}")
+    private int maxMatrixCells;
+
     private final PromptService promptService;
+    private final PromptTemplateService promptTemplateService;
+    private final DatasetService datasetService;
     private final AIExecutionService aiExecutionService;
+    private final ExecutionEngine executionEngine;
     private final TestRunMapper testRunMapper;
+    private final MatrixRunMapper matrixRunMapper;
+    private final TestRunMetricsMapper testRunMetricsMapper;
     private final TestResultMapper testResultMapper;
     private final MetricsService metricsService;
+    private final TestResultBatchWriter testResultBatchWriter;
+    private final JudgeService judgeService;
+    private final TestRunEventPublisher eventPublisher;
+    private final HedgingPolicy hedgingPolicy;
+    private final SamplingPolicy samplingPolicy;
+    private final ModelRouter modelRouter;
+    private final TokenCounter tokenCounter;
+    private final ModelPricingProperties pricing;
+    private final RateLimitProperties rateLimitProperties;
+    private final ThreadPoolTaskExecutor testRunJobExecutor;
 
-    @Transactional
-    public TestRunResponse executeTest(TestRunRequest request, String apiKey) {
+    /**
+     * Records the run and hands the work to the background job executor.
+     * Returns immediately; poll {@link #getTestRun(Long)} for progress.
+     * With sampling requested, the inputs run in shuffled order and the
+     * run stops taking more once its quality estimate meets the target.
+     */
+    public TestRunResponse submitTest(TestRunRequest request, String apiKey) {
+        aiExecutionService.validateTarget(request.getAiProvider(), request.getModelName());
         PromptVersion promptVersion = promptService.getVersion(request.getPromptVersionId());
+        PromptTemplate template = promptTemplateService.forVersion(promptVersion);
+        Dataset dataset = datasetFor(request.getTestInputs(), request.getDatasetId());
+        validateInputs(template, dataset, request.getTestInputs());
+
+        CallerKey callerKey = CallerKey.of(request.getAiProvider(), apiKey);
+        TestRun testRun = newRun(request.getPromptVersionId(), request.getAiProvider(), request.getModelName(),
+                dataset, request.getTestInputs(), callerKey);
+        TestRunRequest.Sampling sampling = request.getSampling();
+        SamplingPolicy.Sampler sampler = null;
+        if (sampling != null) {
+            sampler = samplingPolicy.samplerFor(sampling, testRun.getTotalInputs(), baselineStats(sampling));
+            testRun.setSequential(true);
+            testRun.setSamplingSeed(sampling.getSeed() != null ? sampling.getSeed() : ThreadLocalRandom.current().nextLong());
+            testRun.setBaselineRunId(sampling.getBaselineRunId());
+        }
+        testRunMapper.insert(testRun);
+
+        Cell cell = new Cell(testRun, template);
+        cell.sampler = sampler;
+        Iterator<DatasetRow> inputs = sampler == null
+                ? inputsOf(dataset, request.getTestInputs())
+                : sampler.until(shuffledInputsOf(dataset, request.getTestInputs(), testRun.getSamplingSeed()));
+        try {
+            testRunJobExecutor.execute(() -> runJob(List.of(cell), inputs,
+                    request.isBypassCache(), request.getJudgeModel(), callerKey));
+        } catch (TaskRejectedException e) {
+            testRunMapper.updateCompletion(testRun.getId(), "FAILED");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many test runs queued", e);
+        }
+
+        return buildResponse(testRun, List.of());
+    }
+
+    /**
+     * Runs every requested version against every requested model as one
+     * job. Each version/model cell is an ordinary test run; the inputs are
+     * read once and each version's prompt is rendered once per input for
+     * all models. Cells share the per-model concurrency and rate limits
+     * with everything else. The caller's key goes only to the cells of the
+     * provider it was issued for. Poll {@link #getMatrixRun(Long)} for progress.
+     */
+    public MatrixRunResponse submitMatrix(MatrixRunRequest request, String apiKey) {
+        List<Long> versionIds = request.getPromptVersionIds().stream().distinct().toList();
+        List<MatrixRunRequest.ModelTarget> models = request.getModels().stream().distinct().toList();
+        models.forEach(model -> aiExecutionService.validateTarget(model.getAiProvider(), model.getModelName()));
+        CallerKey callerKey = matrixCallerKey(request, models, apiKey);
+        if (versionIds.size() * models.size() > maxMatrixCells) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A matrix run is limited to " + maxMatrixCells + " version/model cells");
+        }
+        Dataset dataset = datasetFor(request.getTestInputs(), request.getDatasetId());
+
+        Map<Long, PromptTemplate> templates = new LinkedHashMap<>();
+        for (Long versionId : versionIds) {
+            PromptTemplate template = promptTemplateService.forVersion(promptService.getVersion(versionId));
+            validateInputs(template, dataset, request.getTestInputs());
+            templates.put(versionId, template);
+        }
+
+        MatrixRun matrixRun = new MatrixRun();
+        matrixRun.setDatasetId(dataset == null ? null : dataset.getId());
+        matrixRun.setStatus("RUNNING");
+        matrixRunMapper.insert(matrixRun);
+
+        List<Cell> cells = new ArrayList<>();
+        templates.forEach((versionId, template) -> {
+            for (MatrixRunRequest.ModelTarget model : models) {
+                TestRun testRun = newRun(versionId, model.getAiProvider(), model.getModelName(),
+                        dataset, request.getTestInputs(), callerKey);
+                testRun.setMatrixRunId(matrixRun.getId());
+                testRunMapper.insert(testRun);
+                cells.add(new Cell(testRun, template));
+            }
+        });
+
+        try {
+            testRunJobExecutor.execute(() -> {
+                runJob(cells, inputsOf(dataset, request.getTestInputs()),
+                        request.isBypassCache(), request.getJudgeModel(), callerKey);
+                boolean allFailed = cells.stream().allMatch(cell -> "FAILED".equals(cell.status));
+                matrixRunMapper.updateCompletion(matrixRun.getId(), allFailed ? "FAILED" : "COMPLETED");
+            });
+        } catch (TaskRejectedException e) {
+            cells.forEach(cell -> testRunMapper.updateCompletion(cell.run.getId(), "FAILED"));
+            matrixRunMapper.updateCompletion(matrixRun.getId(), "FAILED");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many test runs queued", e);
+        }
+
+        return getMatrixRun(matrixRun.getId());
+    }
+
+    /**
+     * The comparison report of a matrix run: every cell with its progress
+     * and stored metrics, read with a single query.
+     */
+    public MatrixRunResponse getMatrixRun(Long id) {
+        MatrixRun matrixRun = matrixRunMapper.findById(id);
+        if (matrixRun == null) {
+            throw new RuntimeException("Matrix run not found: " + id);
+        }
+        MatrixRunResponse response = new MatrixRunResponse();
+        response.setId(matrixRun.getId());
+        response.setDatasetId(matrixRun.getDatasetId());
+        response.setStatus(matrixRun.getStatus());
+        response.setStartedAt(matrixRun.getStartedAt());
+        response.setCompletedAt(matrixRun.getCompletedAt());
+        response.setCells(testRunMapper.findSummariesByMatrixRunId(id).stream()
+                .map(this::buildSummaryResponse)
+                .toList());
+        return response;
+    }
+
+    /**
+     * Projects the tokens and cost of a run without executing it, and
+     * finds inputs whose prompt would not fit the model's context window.
+     * Dataset rows are streamed through the local tokenizer a page at a
+     * time.
+     */
+    public RunEstimate estimateRun(TestRunRequest request) {
+        PromptTemplate template = promptTemplateService.forVersion(promptService.getVersion(request.getPromptVersionId()));
+        Dataset dataset = datasetFor(request.getTestInputs(), request.getDatasetId());
+        validateInputs(template, dataset, request.getTestInputs());
+
+        String provider = request.getAiProvider();
+        String modelName = request.getModelName();
+        aiExecutionService.validateTarget(provider, modelName);
+        if (ModelRouter.PROVIDER.equals(provider)) {
+            // members are equivalent, so the first one stands in for the group
+            ExecutionEngine.Target first = modelRouter.members(modelName).get(0);
+            provider = first.provider();
+            modelName = first.modelName();
+        }
+        ModelPricingProperties.Model model = pricing.forModel(provider, modelName);
+        Integer contextWindow = model.getContextWindow();
+
+        int inputs = 0;
+        long promptTokens = 0;
+        long sentPromptTokens = 0;
+        int maxPromptTokens = 0;
+        List<Integer> overflowing = new ArrayList<>();
+        int overflowCount = 0;
+        for (Iterator<DatasetRow> rows = inputsOf(dataset, request.getTestInputs()); rows.hasNext(); ) {
+            DatasetRow row = rows.next();
+            int tokens = tokenCounter.countPrompt(provider, modelName, template, row.getVariables());
+            inputs++;
+            promptTokens += tokens;
+            maxPromptTokens = Math.max(maxPromptTokens, tokens);
+            if (contextWindow != null && tokens >= contextWindow) {
+                overflowCount++;
+                if (overflowing.size() < MAX_REPORTED_OVERFLOWS) {
+                    overflowing.add(row.getRowIndex());
+                }
+            } else {
+                sentPromptTokens += tokens;
+            }
+        }
+
+        Double history = testResultMapper.averageCompletionTokens(request.getPromptVersionId(), provider, modelName);
+        int completionPerInput = history != null
+                ? (int) Math.round(history) : rateLimitProperties.getExpectedOutputTokens();
+        long completionTokens = (long) completionPerInput * (inputs - overflowCount);
+
+        RunEstimate estimate = new RunEstimate();
+        estimate.setInputs(inputs);
+        estimate.setPromptTokens(promptTokens);
+        estimate.setMaxPromptTokens(maxPromptTokens);
+        estimate.setCompletionTokensPerInput(completionPerInput);
+        estimate.setCompletionTokensFromHistory(history != null);
+        estimate.setProjectedCompletionTokens(completionTokens);
+        estimate.setProjectedTotalTokens(sentPromptTokens + completionTokens);
+        estimate.setProjectedCostUsd(model.costOf(sentPromptTokens, completionTokens).doubleValue());
+        estimate.setContextWindow(contextWindow);
+        estimate.setOverflowingInputs(overflowCount);
+        estimate.setOverflowingIndexes(overflowing);
+        return estimate;
+    }
+
+    /**
+     * A finished run without failures whose prompt text, inputs, provider
+     * and model all match the request, or null. Its results can stand in
+     * for a new run. A request that would reach the model is not matched
+     * with a mock run, and a sampled request, which is compared against
+     * its baseline as it runs, is never matched.
+     */
+    public TestRunResponse findReusableRun(TestRunRequest request, String apiKey) {
+        if (request.getSampling() != null) {
+            return null;
+        }
+        Dataset dataset = datasetFor(request.getTestInputs(), request.getDatasetId());
+        CallerKey callerKey = CallerKey.of(request.getAiProvider(), apiKey);
+        TestRun match = testRunMapper.findReusable(
+                request.getPromptVersionId(),
+                request.getAiProvider(),
+                request.getModelName(),
+                dataset != null ? dataset.getContentHash() : ContentHash.ofInputs(request.getTestInputs()),
+                aiExecutionService.isMockTarget(request.getAiProvider(), request.getModelName(),
+                        callerKey.forProvider(request.getAiProvider())));
+        return match == null ? null : getTestRun(match.getId());
+    }
+
+    /**
+     * The dataset a request runs, or null for inline inputs. Exactly one of
+     * the two must be given.
+     */
+    private Dataset datasetFor(List<Map<String, String>> testInputs, Long datasetId) {
+        boolean inline = testInputs != null && !testInputs.isEmpty();
+        if (inline == (datasetId != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Give either test inputs or a dataset ID, not both");
+        }
+        return inline ? null : datasetService.getReadyDataset(datasetId);
+    }
+
+    /**
+     * A matrix over one provider takes the key as that provider's; over
+     * several, the request has to say which one it was issued for.
+     */
+    private static CallerKey matrixCallerKey(MatrixRunRequest request, List<MatrixRunRequest.ModelTarget> models,
+            String apiKey) {
+        if (request.getApiKeyProvider() != null && !request.getApiKeyProvider().isBlank()) {
+            return CallerKey.of(request.getApiKeyProvider(), apiKey);
+        }
+        List<String> providers = models.stream().map(MatrixRunRequest.ModelTarget::getAiProvider).distinct().toList();
+        if (providers.size() > 1 && apiKey != null && !apiKey.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "apiKeyProvider is required when an API key is sent for models of several providers");
+        }
+        return CallerKey.of(providers.get(0), apiKey);
+    }
+
+    /**
+     * Quality scores of the run a sampled run is compared against, or null
+     * when only an interval width is targeted.
+     */
+    private QualityStats baselineStats(TestRunRequest.Sampling sampling) {
+        if (sampling.getMaxIntervalWidth() == null && sampling.getBaselineRunId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Sampling needs a maximum interval width, a baseline run, or both");
+        }
+        if (sampling.getBaselineRunId() == null) {
+            return null;
+        }
+        if (testRunMapper.findById(sampling.getBaselineRunId()) == null) {
+            throw new RuntimeException("Test run not found: " + sampling.getBaselineRunId());
+        }
+        QualityStats stats = testResultMapper.findQualityStats(sampling.getBaselineRunId());
+        if (stats.getCount() < 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Baseline run " + sampling.getBaselineRunId() + " has fewer than two quality scores");
+        }
+        return stats;
+    }
 
+    private void validateInputs(PromptTemplate template, Dataset dataset, List<Map<String, String>> testInputs) {
+        if (dataset != null) {
+            promptTemplateService.validateColumns(template, dataset.getColumns());
+        } else {
+            promptTemplateService.validateInputs(template, testInputs);
+        }
+    }
+
+    private TestRun newRun(Long promptVersionId, String aiProvider, String modelName,
+            Dataset dataset, List<Map<String, String>> testInputs, CallerKey callerKey) {
         TestRun testRun = new TestRun();
-        testRun.setPromptVersionId(request.getPromptVersionId());
-        testRun.setAiProvider(request.getAiProvider());
-        testRun.setModelName(request.getModelName());
+        testRun.setPromptVersionId(promptVersionId);
+        testRun.setAiProvider(aiProvider);
+        testRun.setModelName(modelName);
+        testRun.setMock(aiExecutionService.isMockTarget(aiProvider, modelName, callerKey.forProvider(aiProvider)));
         testRun.setStatus("RUNNING");
-        testRunMapper.insert(testRun);
+        if (dataset != null) {
+            testRun.setDatasetId(dataset.getId());
+            testRun.setTotalInputs(dataset.getRowCount());
+            testRun.setInputsHash(dataset.getContentHash());
+        } else {
+            testRun.setTotalInputs(testInputs.size());
+            testRun.setInputsHash(ContentHash.ofInputs(testInputs));
+        }
+        testRun.setCompletedInputs(0);
+        testRun.setFailedInputs(0);
+        return testRun;
+    }
+
+    private Iterator<DatasetRow> inputsOf(Dataset dataset, List<Map<String, String>> testInputs) {
+        if (dataset != null) {
+            return datasetService.rows(dataset.getId());
+        }
+        return IntStream.range(0, testInputs.size())
+                .mapToObj(index -> inlineRow(index, testInputs.get(index)))
+                .iterator();
+    }
+
+    private Iterator<DatasetRow> shuffledInputsOf(Dataset dataset, List<Map<String, String>> testInputs, long seed) {
+        if (dataset != null) {
+            return datasetService.shuffledRows(dataset, seed);
+        }
+        return Arrays.stream(DatasetService.shuffledIndexes(testInputs.size(), seed))
+                .mapToObj(index -> inlineRow(index, testInputs.get(index)))
+                .iterator();
+    }
+
+    private static DatasetRow inlineRow(int index, Map<String, String> variables) {
+        DatasetRow row = new DatasetRow();
+        row.setRowIndex(index);
+        row.setVariables(variables);
+        return row;
+    }
+
+    /**
+     * One version/model pair of a job: its run, compiled template, result
+     * writer, hedging budget and, for a sampled run, its quality estimate.
+     * Owned by the job thread.
+     */
+    private static final class Cell {
+
+        final TestRun run;
+        final PromptTemplate template;
+        final ExecutionEngine.Target target;
+        TestResultBatchWriter.Batch batch;
+        HedgingPolicy.Budget hedgeBudget;
+        SamplingPolicy.Sampler sampler;  // null unless sequentially sampled
+        String status;
+
+        Cell(TestRun run, PromptTemplate template) {
+            this.run = run;
+            this.template = template;
+            this.target = new ExecutionEngine.Target(run.getAiProvider(), run.getModelName());
+        }
+    }
+
+    // one input of one cell, with the prompt rendered for it
+    private record Work(Cell cell, DatasetRow row, String prompt) {
+
+    }
+
+    // result is null when the call threw
+    private record Outcome(Work work, TestResult result) {
 
-        List<TestResult> results = new ArrayList<>();
+    }
+
+    /**
+     * Executes the cells of a job off the request thread, walking the inputs
+     * once: each input is fanned out to every cell, rendered once per
+     * version. Dataset rows are read in pages as the job advances rather
+     * than loaded up front. No transaction spans the model calls; finished
+     * results are written in short batched transactions together with the
+     * progress counters. Live events go to any SSE subscribers of each run.
+     */
+    private void runJob(List<Cell> cells, Iterator<DatasetRow> rows, boolean bypassCache, String judgeModel,
+            CallerKey callerKey) {
+        for (Cell cell : cells) {
+            Consumer<Double> onScore = cell.sampler == null ? null : score -> sample(cell, score);
+            cell.batch = testResultBatchWriter.open(cell.run.getId(),
+                    flushed -> submitForJudging(flushed, cell.template.getSource(), judgeModel, callerKey, onScore));
+            cell.hedgeBudget = hedgingPolicy.budgetFor(cell.run.getTotalInputs());
+        }
+        // cells of the same version render the same prompt for an input
+        Collection<List<Cell>> byVersion = cells.stream()
+                .collect(Collectors.groupingBy(cell -> cell.run.getPromptVersionId(), LinkedHashMap::new,
+                        Collectors.toList()))
+                .values();
+        try {
+            executionEngine.executeStream(
+                    cells.stream().map(cell -> cell.target).distinct().toList(),
+                    workFor(byVersion, rows),
+                    work -> work.cell().target,
+                    work -> execute(work, bypassCache, callerKey),
+                    (index, outcome) -> record(outcome)
+            );
+            for (Cell cell : cells) {
+                cell.batch.flush();
+                TestRun finished = testRunMapper.findById(cell.run.getId());
+                boolean allFailed = finished.getCompletedInputs() == 0 && finished.getFailedInputs() > 0;
+                cell.status = allFailed ? "FAILED" : "COMPLETED";
+                testRunMapper.updateCompletion(cell.run.getId(), cell.status);
+            }
+
+        } catch (Exception e) {
+            for (Cell cell : cells) {
+                if (cell.status != null) {
+                    continue;
+                }
+                log.error("Test run {} aborted", cell.run.getId(), e);
+                try {
+                    cell.batch.flush();
+                } catch (Exception flushError) {
+                    log.warn("Could not flush pending results of run {}", cell.run.getId(), flushError);
+                }
+                cell.status = "FAILED";
+                testRunMapper.updateCompletion(cell.run.getId(), cell.status);
+            }
+        } finally {
+            for (Cell cell : cells) {
+                recordHedging(cell.run.getId(), cell.hedgeBudget);
+                recordSampling(cell);
+                publishSummary(cell.run.getId());
+                eventPublisher.complete(cell.run.getId());
+            }
+        }
+    }
+
+    private static Iterator<Work> workFor(Collection<List<Cell>> byVersion, Iterator<DatasetRow> rows) {
+        return new Iterator<>() {
+
+            private final Deque<Work> pending = new ArrayDeque<>();
+
+            @Override
+            public boolean hasNext() {
+                if (pending.isEmpty() && rows.hasNext()) {
+                    DatasetRow row = rows.next();
+                    for (List<Cell> version : byVersion) {
+                        String prompt = version.get(0).template.render(row.getVariables());
+                        version.forEach(cell -> pending.add(new Work(cell, row, prompt)));
+                    }
+                }
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public Work next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return pending.poll();
+            }
+        };
+    }
+
+    private Outcome execute(Work work, boolean bypassCache, CallerKey callerKey) {
+        TestRun run = work.cell().run;
+        Long runId = run.getId();
+        int index = work.row().getRowIndex();
+        Map<String, String> variables = work.row().getVariables();
+        eventPublisher.publish(runId, "start", Map.of("index", index, "inputVariables", variables));
+        try {
+            AIExecutionService.ExecutionOptions options = new AIExecutionService.ExecutionOptions();
+            options.setBypassCache(bypassCache);
+            options.setHedgeBudget(work.cell().hedgeBudget);
+            options.setRenderedPrompt(work.prompt());
+            options.setTokenListener(token ->
+                    eventPublisher.publish(runId, "token", Map.of("index", index, "token", token)));
 
-        for (Map<String, String> inputs : request.getTestInputs()) {
             AIExecutionService.AIResponse aiResponse = aiExecutionService.execute(
-                    promptVersion.getContent(),
-                    inputs,
-                    request.getAiProvider(),
-                    request.getModelName(),
-                    apiKey
+                    work.cell().template,
+                    variables,
+                    run.getAiProvider(),
+                    run.getModelName(),
+                    callerKey.forProvider(run.getAiProvider()),
+                    options
             );
 
             TestResult result = new TestResult();
-            result.setTestRunId(testRun.getId());
+            result.setTestRunId(runId);
+            result.setInputIndex(index);
+            result.setInputVariables(variables);
+            if (ModelRouter.PROVIDER.equals(run.getAiProvider())) {
+                result.setServedBy(aiResponse.getProvider() + ":" + aiResponse.getModel());
+            }
             result.setAiResponse(aiResponse.getResponseText());
             result.setResponseTimeMs(aiResponse.getResponseTimeMs());
+            result.setTimeToFirstTokenMs(aiResponse.getTimeToFirstTokenMs());
+            result.setPromptTokens(aiResponse.getPromptTokens());
+            result.setCompletionTokens(aiResponse.getCompletionTokens());
             result.setTokenCount(aiResponse.getTokenCount());
             result.setCostUsd(BigDecimal.valueOf(aiResponse.getCostUsd()));
             result.setQualityScore(aiResponse.getQualityScore());
+            result.setStatus(aiResponse.isFailed() ? "FAILED" : "SUCCESS");
+            result.setErrorMessage(aiResponse.getErrorMessage());
+            return new Outcome(work, result);
+
+        } catch (Exception e) {
+            log.error("Test run {} input failed", runId, e);
+            eventPublisher.publish(runId, "error", Map.of("index", index, "message", String.valueOf(e.getMessage())));
+            return new Outcome(work, null);
+        }
+    }
+
+    private void record(Outcome outcome) {
+        Cell cell = outcome.work().cell();
+        Long runId = cell.run.getId();
+        int index = outcome.work().row().getRowIndex();
+        TestResult result = outcome.result();
+        if (result == null) {
+            cell.batch.addFailure();
+            return;
+        }
+        cell.batch.add(result);
+        if ("FAILED".equals(result.getStatus())) {
+            eventPublisher.publish(runId, "error", Map.of("index", index, "message", String.valueOf(result.getErrorMessage())));
+        } else {
+            eventPublisher.publish(runId, "complete", Map.of("index", index, "result", result));
+        }
+        // mock responses arrive already scored; the rest are scored by the judge after the flush
+        if (cell.sampler != null && result.getQualityScore() != null) {
+            sample(cell, result.getQualityScore());
+        }
+    }
+
+    // called from the job thread and from judge workers
+    private void sample(Cell cell, double score) {
+        SamplingPolicy.Decision decision = cell.sampler.record(score);
+        if (decision != null) {
+            log.info("Test run {} stopped sampling after {} scores: {} (mean {}, ±{})", cell.run.getId(),
+                    decision.samples(), decision.reason(), decision.qualityMean(), decision.intervalHalfWidth());
+            eventPublisher.publish(cell.run.getId(), "sampling", decision);
+        }
+    }
+
+    /**
+     * Streams a run's live events. A run that has already finished gets its
+     * final metrics event straight away.
+     */
+    public SseEmitter streamTestRun(Long id) {
+        TestRun testRun = testRunMapper.findById(id);
+        if (testRun == null) {
+            throw new RuntimeException("Test run not found: " + id);
+        }
+        SseEmitter emitter = eventPublisher.subscribe(id);
+        // re-read after subscribing so a job finishing in between is not missed
+        if (!"RUNNING".equals(testRunMapper.findById(id).getStatus())) {
+            publishSummary(id);
+            eventPublisher.complete(id);
+        }
+        return emitter;
+    }
+
+    private void recordHedging(Long runId, HedgingPolicy.Budget hedgeBudget) {
+        if (hedgeBudget == null || hedgeBudget.getIssued() == 0) {
+            return;
+        }
+        try {
+            testRunMetricsMapper.recordHedging(runId, hedgeBudget.getIssued(), hedgeBudget.getWon(), hedgeBudget.getSavedMs());
+        } catch (Exception e) {
+            log.warn("Could not record hedging of run {}", runId, e);
+        }
+    }
+
+    private void recordSampling(Cell cell) {
+        if (cell.sampler == null) {
+            return;
+        }
+        SamplingPolicy.Decision decision = cell.sampler.getDecision();
+        int skipped = Math.max(0, cell.run.getTotalInputs() - cell.sampler.getTaken());
+        try {
+            if (decision == null) {
+                testRunMapper.recordSampling(cell.run.getId(), null, null, null, null, skipped);
+            } else {
+                testRunMapper.recordSampling(cell.run.getId(), decision.reason(), decision.samples(),
+                        decision.qualityMean(), decision.intervalHalfWidth(), skipped);
+            }
+        } catch (Exception e) {
+            log.warn("Could not record sampling of run {}", cell.run.getId(), e);
+        }
+    }
 
-            testResultMapper.insert(result);
-            results.add(result);
+    private void publishSummary(Long runId) {
+        try {
+            TestRunResponse summary = getTestRun(runId);
+            summary.setResults(null);
+            eventPublisher.publish(runId, "metrics", summary);
+        } catch (Exception e) {
+            log.warn("Could not publish summary of run {}", runId, e);
         }
+    }
+
+    /**
+     * Grades a finished run again, e.g. with a different judge model,
+     * without re-executing the prompt. Returns the number of queued results.
+     */
+    public int rescoreTestRun(Long id, String judgeModel, String apiKey) {
+        TestRun testRun = testRunMapper.findById(id);
+        if (testRun == null) {
+            throw new RuntimeException("Test run not found: " + id);
+        }
+        PromptVersion promptVersion = promptService.getVersion(testRun.getPromptVersionId());
+        List<TestResult> results = testResultMapper.findByTestRunId(id);
+        // the judge grades the whole response, not the stored preview
+        Map<Long, String> bodies = testResultMapper.findBodiesByTestRunId(id).stream()
+                .collect(Collectors.toMap(TestResultBody::getTestResultId, TestResultBody::getBody));
+        results.forEach(result -> result.setAiResponse(bodies.getOrDefault(result.getId(), result.getAiResponse())));
+
+        testResultMapper.clearQualityScores(id);
+        results.forEach(result -> result.setQualityScore(null));
+        // the key was sent for the run's provider
+        submitForJudging(results, promptVersion.getContent(), judgeModel,
+                CallerKey.of(testRun.getAiProvider(), apiKey), null);
+        return results.size();
+    }
 
-        testRunMapper.updateCompletion(testRun.getId(), "COMPLETED");
+    /**
+     * @param onScore receives each score once it is stored, or null
+     */
+    private void submitForJudging(List<TestResult> results, String originalPrompt, String judgeModel,
+            CallerKey callerKey, Consumer<Double> onScore) {
+        for (TestResult result : results) {
+            // mock responses arrive already scored
+            if (result.getQualityScore() == null && result.getAiResponse() != null) {
+                CompletableFuture<Double> score =
+                        judgeService.submit(result.getId(), originalPrompt, result.getAiResponse(), judgeModel, callerKey);
+                if (onScore != null) {
+                    score.thenAccept(onScore);
+                }
+            }
+        }
+    }
 
-        return buildResponse(testRun, results);
+    /**
+     * Full text of one response. Results only carry a preview of long
+     * responses; this reads and inflates the stored body.
+     */
+    public String getResultBody(Long resultId) {
+        TestResultBody body = testResultMapper.findBody(resultId);
+        if (body != null) {
+            return body.getBody();
+        }
+        TestResult result = testResultMapper.findById(resultId);
+        if (result == null) {
+            throw new RuntimeException("Test result not found: " + resultId);
+        }
+        return result.getAiResponse();
     }
 
     public TestRunResponse getTestRun(Long id) {
         TestRun testRun = testRunMapper.findById(id);
         List<TestResult> results = testResultMapper.findByTestRunId(id);
-        return buildResponse(testRun, results);
+        TestRunResponse response = buildRunFields(testRun);
+        response.setResults(results);
+        response.setMetrics(metricsService.summarize(testRunMetricsMapper.findByTestRunId(id)));
+        return response;
+    }
+
+    /**
+     * Metrics over every run of a version, merged from the stored per-run
+     * aggregates.
+     */
+    public TestRunResponse.MetricsSummary getVersionMetrics(Long versionId) {
+        return metricsService.summarize(metricsService.merge(testRunMetricsMapper.findByPromptVersionId(versionId)));
     }
 
+    /**
+     * Every run of a version, newest first, without result bodies. Walks
+     * the summary pages to the end; callers that can page should use
+     * {@link #getTestRunSummaries} instead.
+     */
     public List<TestRunResponse> getTestRunsByVersion(Long versionId) {
-        List<TestRun> testRuns = testRunMapper.findByPromptVersionId(versionId);
-        return testRuns.stream()
-                .map(run -> getTestRun(run.getId()))
-                .collect(Collectors.toList());
+        List<TestRunResponse> runs = new ArrayList<>();
+        Long before = null;
+        do {
+            TestRunPage page = getTestRunSummaries(versionId, before, MAX_PAGE_SIZE);
+            runs.addAll(page.getItems());
+            before = page.getNextCursor();
+        } while (before != null);
+        return runs;
+    }
+
+    /**
+     * Newest-first page of a version's runs with their stored metrics, read
+     * with a single query. Result bodies are left out; fetch a run by id
+     * to get them.
+     */
+    public TestRunPage getTestRunSummaries(Long versionId, Long beforeId, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<TestRunSummary> rows = testRunMapper.findSummariesByPromptVersionId(versionId, beforeId, pageSize);
+
+        TestRunPage page = new TestRunPage();
+        page.setItems(rows.stream().map(this::buildSummaryResponse).toList());
+        page.setNextCursor(rows.size() == pageSize ? rows.get(rows.size() - 1).getId() : null);
+        return page;
+    }
+
+    private TestRunResponse buildSummaryResponse(TestRunSummary row) {
+        TestRunResponse response = buildRunFields(row);
+        response.setMetrics(metricsService.summarize(row.getMetrics()));
+        return response;
     }
 
     private TestRunResponse buildResponse(TestRun run, List<TestResult> results) {
+        TestRunResponse response = buildRunFields(run);
+        response.setResults(results);
+        response.setMetrics(metricsService.calculateMetrics(results));
+        return response;
+    }
+
+    private TestRunResponse buildRunFields(TestRun run) {
         TestRunResponse response = new TestRunResponse();
         response.setId(run.getId());
         response.setPromptVersionId(run.getPromptVersionId());
+        response.setDatasetId(run.getDatasetId());
+        response.setMatrixRunId(run.getMatrixRunId());
         response.setAiProvider(run.getAiProvider());
         response.setModelName(run.getModelName());
         response.setStartedAt(run.getStartedAt());
         response.setCompletedAt(run.getCompletedAt());
         response.setStatus(run.getStatus());
-        response.setResults(results);
-        response.setMetrics(metricsService.calculateMetrics(results));
+        response.setMock(run.getMock());
+        response.setProgress(buildProgress(run));
+        if (Boolean.TRUE.equals(run.getSequential())) {
+            response.setSampling(buildSampling(run));
+        }
         return response;
     }
+
+    private TestRunResponse.Sampling buildSampling(TestRun run) {
+        TestRunResponse.Sampling sampling = new TestRunResponse.Sampling();
+        sampling.setSeed(run.getSamplingSeed());
+        sampling.setBaselineRunId(run.getBaselineRunId());
+        sampling.setStopReason(run.getStopReason());
+        sampling.setScoresAtStop(run.getStopSamples());
+        sampling.setQualityMean(run.getStopQualityMean());
+        sampling.setIntervalHalfWidth(run.getStopQualityHalfWidth());
+        sampling.setSkippedInputs(run.getSkippedInputs());
+        return sampling;
+    }
+
+    private TestRunResponse.Progress buildProgress(TestRun run) {
+        TestRunResponse.Progress progress = new TestRunResponse.Progress();
+        progress.setTotalInputs(run.getTotalInputs());
+        progress.setCompletedInputs(run.getCompletedInputs());
+        progress.setFailedInputs(run.getFailedInputs());
+        return progress;
+    }
 }
@@ -0,0 +1,102 @@
+package com.promptframework.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.promptframework.config.ModelPricingProperties;
+import com.promptframework.template.PromptTemplate;
+
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts tokens locally with the BPE encodings of OpenAI models (jtokkit,
+ * through LangChain4j's OpenAiTokenizer), for when no provider count is
+ * available: context-window checks, rate-limit reservations and dry-run
+ * estimates. Other providers' models are counted with a configured or
+ * fallback encoding, which is an approximation.
+ * <p>
+ * Tokenizers are loaded once per encoding. For templates, the literal text
+ * is counted once and cached, and short values are cached too, since
+ * dataset columns often repeat. A prompt is then counted as its literals
+ * plus its values. That can overcount by a token or two per placeholder
+ * where BPE would have merged across the boundary.
+ */
+@Service
+@Slf4j
+public class TokenCounter {
+
+    // cl100k_base; known to every jtokkit release
+    private static final String FALLBACK_TOKENIZER = "gpt-4";
+    private static final int MAX_CACHED_VALUE_CHARS = 256;
+
+    private final ModelPricingProperties pricing;
+    private final ConcurrentMap<String, Tokenizer> tokenizers = new ConcurrentHashMap<>();
+    private final Cache<LiteralKey, Integer> literalCounts = Caffeine.newBuilder().maximumSize(1_000).build();
+    private final Cache<String, Integer> valueCounts = Caffeine.newBuilder().maximumSize(50_000).build();
+
+    public TokenCounter(ModelPricingProperties pricing) {
+        this.pricing = pricing;
+    }
+
+    public int count(String provider, String modelName, String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return tokenizer(tokenizerName(provider, modelName)).estimateTokenCountInText(text);
+    }
+
+    /**
+     * Tokens of the template rendered with {@code values}, without rendering
+     * it. Placeholders without a value count as nothing.
+     */
+    public int countPrompt(String provider, String modelName, PromptTemplate template, Map<String, String> values) {
+        String name = tokenizerName(provider, modelName);
+        Tokenizer tokenizer = tokenizer(name);
+        int tokens = literalCounts.get(new LiteralKey(template, name),
+                key -> tokenizer.estimateTokenCountInText(template.getLiteralText()));
+        for (String variable : template.getPlaceholderNames()) {
+            String value = values.get(variable);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            tokens += value.length() <= MAX_CACHED_VALUE_CHARS
+                    ? valueCounts.get(name + '\u0000' + value, key -> tokenizer.estimateTokenCountInText(value))
+                    : tokenizer.estimateTokenCountInText(value);
+        }
+        return tokens;
+    }
+
+    private String tokenizerName(String provider, String modelName) {
+        String configured = pricing.forModel(provider, modelName).getTokenizer();
+        if (configured != null) {
+            return configured;
+        }
+        return "openai".equals(provider) ? modelName : FALLBACK_TOKENIZER;
+    }
+
+    private Tokenizer tokenizer(String name) {
+        return tokenizers.computeIfAbsent(name, key -> {
+            try {
+                Tokenizer tokenizer = new OpenAiTokenizer(key);
+                // the encoding is only looked up on first use, so an unknown model fails here, not at construction
+                tokenizer.estimateTokenCountInText(key);
+                return tokenizer;
+            } catch (RuntimeException e) {
+                log.debug("No local encoding for {}, counting with {}", key, FALLBACK_TOKENIZER);
+                return new OpenAiTokenizer(FALLBACK_TOKENIZER);
+            }
+        });
+    }
+
+    // templates are cached and shared per content hash, so identity is a sound key
+    private record LiteralKey(PromptTemplate template, String tokenizer) {
+
+    }
+}
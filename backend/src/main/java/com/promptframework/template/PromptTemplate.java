@@ -0,0 +1,144 @@
+package com.promptframework.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A prompt parsed once into literal text and variable placeholders.
+ * Both {@code {{name}}} and {@code {name}} are recognised; braces that do
+ * not enclose a valid name (JSON examples, for instance) stay literal.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class PromptTemplate {
+
+    private final String source;
+    // literals[i] precedes placeholder i; the last literal trails the template
+    private final String[] literals;
+    private final String[] names;
+    // original placeholder text, rendered as-is when a value is missing
+    private final String[] placeholders;
+    private final List<String> variables;
+    private final int literalLength;
+
+    private PromptTemplate(String source, List<String> literals, List<String> names, List<String> placeholders) {
+        this.source = source;
+        this.literals = literals.toArray(String[]::new);
+        this.names = names.toArray(String[]::new);
+        this.placeholders = placeholders.toArray(String[]::new);
+        this.variables = List.copyOf(new LinkedHashSet<>(names));
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    public static PromptTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '{') {
+                boolean doubled = i + 1 < length && source.charAt(i + 1) == '{';
+                int close = doubled ? source.indexOf("}}", i + 2) : source.indexOf('}', i + 1);
+                if (close > 0) {
+                    String name = source.substring(i + (doubled ? 2 : 1), close);
+                    if (doubled) {
+                        name = name.strip();
+                    }
+                    if (isValidName(name)) {
+                        int end = close + (doubled ? 2 : 1);
+                        literals.add(literal.toString());
+                        literal.setLength(0);
+                        names.add(name);
+                        placeholders.add(source.substring(i, end));
+                        i = end;
+                        continue;
+                    }
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString());
+        return new PromptTemplate(source, literals, names, placeholders);
+    }
+
+    /**
+     * Renders the template in a single pass. Placeholders without a value
+     * are kept verbatim; use {@link #missingVariables(Map)} to reject those
+     * inputs up front.
+     */
+    public String render(Map<String, String> values) {
+        if (names.length == 0) {
+            return source;
+        }
+        Map<String, String> bound = values == null ? Collections.emptyMap() : values;
+
+        int capacity = literalLength;
+        for (int i = 0; i < names.length; i++) {
+            String value = bound.get(names[i]);
+            capacity += value == null ? placeholders[i].length() : value.length();
+        }
+
+        StringBuilder out = new StringBuilder(capacity);
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]);
+            String value = bound.get(names[i]);
+            out.append(value == null ? placeholders[i] : value);
+        }
+        out.append(literals[names.length]);
+        return out.toString();
+    }
+
+    public Set<String> missingVariables(Map<String, String> values) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String variable : variables) {
+            if (values == null || values.get(variable) == null) {
+                missing.add(variable);
+            }
+        }
+        return missing;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    // distinct variable names in order of first appearance
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    // the text around the placeholders, joined; counted once for token estimates
+    public String getLiteralText() {
+        return String.join("", literals);
+    }
+
+    // variable of each placeholder in order, repeats included
+    public List<String> getPlaceholderNames() {
+        return List.of(names);
+    }
+
+    private static boolean isValidName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        char first = name.charAt(0);
+        if (!Character.isLetter(first) && first != '_') {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,48 +2,146 @@ CREATE TABLE prompts (
     id BIGSERIAL PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     description TEXT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_version_number INT NOT NULL DEFAULT 0,  -- version counter, advanced with UPDATE ... RETURNING
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- prompt text stored once per distinct content, addressed by its sha-256
+CREATE TABLE prompt_contents (
+    hash CHAR(64) PRIMARY KEY,
+    content TEXT NOT NULL,
+    content_length INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
 CREATE TABLE prompt_versions (
     id BIGSERIAL PRIMARY KEY,
     prompt_id BIGINT REFERENCES prompts(id) ON DELETE CASCADE,
     version_number INT NOT NULL,
-    content TEXT NOT NULL,
+    content_hash CHAR(64) NOT NULL REFERENCES prompt_contents(hash),
     variables JSONB,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     UNIQUE(prompt_id, version_number)
 );
 
+-- imported test inputs; rows are written in chunks while status is IMPORTING
+CREATE TABLE datasets (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'IMPORTING',
+    columns JSONB,
+    row_count INT NOT NULL DEFAULT 0,
+    content_hash CHAR(64),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE dataset_rows (
+    dataset_id BIGINT REFERENCES datasets(id) ON DELETE CASCADE,
+    row_index INT NOT NULL,
+    variables JSONB NOT NULL,
+    PRIMARY KEY (dataset_id, row_index)
+);
+
+-- versions x models over one set of inputs, executed as a single job; each cell is a test run
+CREATE TABLE matrix_runs (
+    id BIGSERIAL PRIMARY KEY,
+    dataset_id BIGINT REFERENCES datasets(id),
+    status VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
 CREATE TABLE test_runs (
     id BIGSERIAL PRIMARY KEY,
     prompt_version_id BIGINT REFERENCES prompt_versions(id),
+    dataset_id BIGINT REFERENCES datasets(id),  -- null when the inputs were posted inline
+    matrix_run_id BIGINT REFERENCES matrix_runs(id),
     ai_provider VARCHAR(50) NOT NULL,
     model_name VARCHAR(100) NOT NULL,
     started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     completed_at TIMESTAMP,
-    status VARCHAR(20) DEFAULT 'RUNNING'
+    status VARCHAR(20) DEFAULT 'RUNNING',
+    total_inputs INT NOT NULL DEFAULT 0,
+    completed_inputs INT NOT NULL DEFAULT 0,
+    failed_inputs INT NOT NULL DEFAULT 0,
+    inputs_hash CHAR(64),  -- sha-256 of the test inputs, to match runs over the same inputs
+    mock BOOLEAN NOT NULL DEFAULT FALSE,  -- answered with mock responses, for want of an API key or in mock mode
+    -- sequential sampling: shuffled inputs, stopped once the quality estimate settles
+    sequential BOOLEAN NOT NULL DEFAULT FALSE,
+    sampling_seed BIGINT,
+    baseline_run_id BIGINT REFERENCES test_runs(id) ON DELETE SET NULL,
+    stop_reason VARCHAR(20),  -- INTERVAL_WIDTH or SIGNIFICANT; null when every input ran
+    stop_samples INT,
+    stop_quality_mean DOUBLE PRECISION,
+    stop_quality_half_width DOUBLE PRECISION,
+    skipped_inputs INT NOT NULL DEFAULT 0  -- model calls saved by stopping early
 );
 
 CREATE TABLE test_results (
     id BIGSERIAL PRIMARY KEY,
     test_run_id BIGINT REFERENCES test_runs(id) ON DELETE CASCADE,
+    input_index INT,  -- position of the input in the request or dataset
     input_variables JSONB,
-    ai_response TEXT,
+    served_by VARCHAR(160),  -- provider:model that answered, when the run was routed to a group of equivalents
+    ai_response TEXT,  -- whole response, or its first ai.persistence.response-preview-chars characters
+    response_length INT,  -- characters in the whole response
     response_time_ms INT,
-    token_count INT,
+    time_to_first_token_ms INT,
+    prompt_tokens INT,
+    completion_tokens INT,
+    token_count INT,  -- prompt_tokens + completion_tokens
     cost_usd DECIMAL(10, 6),
     quality_score DECIMAL(3, 2),
+    status VARCHAR(20) NOT NULL DEFAULT 'SUCCESS',
+    error_message TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- deflate-compressed full text of responses longer than the preview
+CREATE TABLE test_result_bodies (
+    test_result_id BIGINT PRIMARY KEY REFERENCES test_results(id) ON DELETE CASCADE,
+    body BYTEA NOT NULL
+);
+
+-- already compressed; keep TOAST from trying again
+ALTER TABLE test_result_bodies ALTER COLUMN body SET STORAGE EXTERNAL;
+
+-- one row per run, maintained incrementally as results land; see TestRunMetricsMapper.merge
+CREATE TABLE test_run_metrics (
+    test_run_id BIGINT PRIMARY KEY REFERENCES test_runs(id) ON DELETE CASCADE,
+    result_count INT NOT NULL DEFAULT 0,
+    error_count INT NOT NULL DEFAULT 0,
+    response_time_sum_ms BIGINT NOT NULL DEFAULT 0,
+    ttft_sum_ms BIGINT NOT NULL DEFAULT 0,
+    ttft_count INT NOT NULL DEFAULT 0,
+    total_tokens BIGINT NOT NULL DEFAULT 0,
+    total_cost_usd DECIMAL(14, 6) NOT NULL DEFAULT 0,
+    quality_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    quality_count INT NOT NULL DEFAULT 0,
+    latency_buckets BIGINT[] NOT NULL DEFAULT '{}',
+    hedged_requests INT NOT NULL DEFAULT 0,
+    hedge_wins INT NOT NULL DEFAULT 0,
+    hedge_saved_ms BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_prompts_created_at ON prompts(created_at DESC, id DESC);
 CREATE INDEX idx_prompt_versions_prompt_id ON prompt_versions(prompt_id);
-CREATE INDEX idx_test_runs_prompt_version ON test_runs(prompt_version_id);
-CREATE INDEX idx_test_results_test_run ON test_results(test_run_id);
+CREATE INDEX idx_prompt_versions_content_hash ON prompt_versions(content_hash);
+CREATE INDEX idx_test_runs_prompt_version ON test_runs(prompt_version_id, id DESC);
+CREATE INDEX idx_test_runs_inputs_hash ON test_runs(inputs_hash, model_name);
+CREATE INDEX idx_test_runs_started_at ON test_runs(started_at);
+CREATE INDEX idx_test_runs_matrix_run ON test_runs(matrix_run_id) WHERE matrix_run_id IS NOT NULL;
+CREATE INDEX idx_test_results_test_run ON test_results(test_run_id, input_index);
+
+INSERT INTO prompts (name, description, last_version_number) VALUES 
+('Sample Prompt', 'A test prompt for development', 1);
 
-INSERT INTO prompts (name, description) VALUES 
-('Sample Prompt', 'A test prompt for development');
+INSERT INTO prompt_contents (hash, content, content_length)
+SELECT encode(sha256(convert_to(t.content, 'UTF8')), 'hex'), t.content, char_length(t.content)
+FROM (VALUES ('You are a helpful assistant. Please help with: {task}')) AS t(content);
 
-INSERT INTO prompt_versions (prompt_id, version_number, content) VALUES 
-(1, 1, 'You are a helpful assistant. Please help with: {task}');
\ No newline at end of file
+INSERT INTO prompt_versions (prompt_id, version_number, content_hash, variables)
+SELECT 1, 1, hash, '["task"]' FROM prompt_contents;
\ No newline at end of file
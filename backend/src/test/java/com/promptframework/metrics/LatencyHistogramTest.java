@@ -0,0 +1,121 @@
+package com.promptframework.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramHasNoPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.count()).isZero();
+        assertThat(histogram.percentile(0.5)).isNull();
+        assertThat(histogram.toArray()).isEmpty();
+    }
+
+    @Test
+    void valuesUpToOneMillisecondShareTheFirstBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(0);
+        histogram.record(1);
+
+        assertThat(histogram.toArray()).containsExactly(3);
+        assertThat(histogram.percentile(1.0)).isEqualTo(1);
+    }
+
+    @Test
+    void percentilesStayWithinBucketError() {
+        for (long value = 2; value < 10_000_000; value = value * 3 / 2 + 1) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+
+            // half a bucket is under 5%; the rest is rounding to whole milliseconds
+            assertThat((double) histogram.percentile(0.5)).as("value %d", value)
+                    .isCloseTo(value, within(value * 0.05 + 0.5));
+        }
+    }
+
+    @Test
+    void bucketUpperBoundIsInclusive() {
+        // 1.1^8 = 2.14..., so 2 falls in bucket 8 and 3 in bucket 12
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2);
+        histogram.record(3);
+
+        long[] buckets = histogram.toArray();
+        assertThat(buckets).hasSize(13);
+        assertThat(buckets[8]).isEqualTo(1);
+        assertThat(buckets[12]).isEqualTo(1);
+    }
+
+    @Test
+    void verySlowValuesShareTheLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(24L * 60 * 60 * 1000);
+        histogram.record(Long.MAX_VALUE);
+
+        long[] buckets = histogram.toArray();
+        assertThat(buckets).hasSize(171);
+        assertThat(buckets[170]).isEqualTo(2);
+    }
+
+    @Test
+    void percentileRanksCountFromTheBottom() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(10);
+        }
+        histogram.record(1000);
+
+        assertThat(histogram.percentile(0.0)).isCloseTo(10L, within(1L));
+        assertThat(histogram.percentile(0.99)).isCloseTo(10L, within(1L));
+        assertThat(histogram.percentile(0.995)).isCloseTo(1000L, within(50L));
+    }
+
+    @Test
+    void mergeAddsCountsAcrossDifferentLengths() {
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(5);
+        LatencyHistogram large = new LatencyHistogram();
+        large.record(5);
+        large.record(5000);
+
+        small.merge(large);
+
+        assertThat(small.count()).isEqualTo(3);
+        assertThat(small.percentile(0.5)).isCloseTo(5L, within(1L));
+        assertThat(small.percentile(1.0)).isCloseTo(5000L, within(250L));
+        assertThat(large.count()).isEqualTo(2);
+    }
+
+    @Test
+    void decayHalvesCountsAndTrimsEmptiedBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 4; i++) {
+            histogram.record(10);
+        }
+        histogram.record(100);
+
+        histogram.decay();
+
+        assertThat(histogram.count()).isEqualTo(2);
+        assertThat(histogram.percentile(1.0)).isCloseTo(10L, within(1L));
+        // 10 ms is bucket 25; the bucket of the single 100 ms sample decayed to zero
+        assertThat(histogram.toArray()).hasSize(26);
+    }
+
+    @Test
+    void ofCopiesTheStoredBuckets() {
+        long[] stored = {0, 2};
+        LatencyHistogram histogram = LatencyHistogram.of(stored);
+        histogram.record(0);
+
+        assertThat(stored).containsExactly(0, 2);
+        assertThat(histogram.toArray()).containsExactly(1, 2);
+        assertThat(LatencyHistogram.of(null).count()).isZero();
+    }
+}
@@ -0,0 +1,105 @@
+package com.promptframework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class DatasetParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csvMapsRowsByHeader() throws IOException {
+        assertThat(csv("task,tone\nsummarize,formal\ntranslate,casual\n")).containsExactly(
+                Map.of("task", "summarize", "tone", "formal"),
+                Map.of("task", "translate", "tone", "casual"));
+    }
+
+    @Test
+    void csvQuotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        List<Map<String, String>> rows = csv("text,n\n\"a, b\",1\n\"say \"\"hi\"\"\",2\n\"two\nlines\",3\n");
+
+        assertThat(rows).extracting(row -> row.get("text")).containsExactly("a, b", "say \"hi\"", "two\nlines");
+    }
+
+    @Test
+    void csvAcceptsCrlfAndAMissingFinalNewline() throws IOException {
+        assertThat(csv("a,b\r\n1,2\r\n3,4")).containsExactly(Map.of("a", "1", "b", "2"), Map.of("a", "3", "b", "4"));
+        assertThat(csv("a\r\n\"x\r\ny\"\r\n")).containsExactly(Map.of("a", "x\r\ny"));
+    }
+
+    @Test
+    void csvSkipsEmptyLines() throws IOException {
+        assertThat(csv("\r\n\na,b\n\n1,2\r\n\r\n3,4\n\n")).hasSize(2);
+    }
+
+    @Test
+    void csvSingleColumnKeepsEmptyValues() throws IOException {
+        List<Map<String, String>> rows = csv("task\nfirst\n\"\"\n\nlast\n");
+
+        assertThat(rows).extracting(row -> row.get("task")).containsExactly("first", "", "last");
+    }
+
+    @Test
+    void csvStripsByteOrderMark() throws IOException {
+        assertThat(csv("\uFEFFtask\nx\n")).containsExactly(Map.of("task", "x"));
+    }
+
+    @Test
+    void csvRejectsBadHeaders() {
+        assertThatThrownBy(() -> csv("")).isInstanceOf(ResponseStatusException.class).hasMessageContaining("header");
+        assertThatThrownBy(() -> csv("a,a\n1,2\n")).hasMessageContaining("unique");
+        assertThatThrownBy(() -> csv("a,\n1,2\n")).hasMessageContaining("non-empty");
+    }
+
+    @Test
+    void csvReportsTheLineOfAMalformedRecord() {
+        assertThatThrownBy(() -> csv("a,b\n1,2\n\"multi\nline\",2\n3\n"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Line 5")
+                .hasMessageContaining("expected 2 fields, found 1");
+        assertThatThrownBy(() -> csv("a\n\"open\n")).hasMessageContaining("Line 2").hasMessageContaining("unterminated");
+    }
+
+    @Test
+    void jsonlTakesScalarsAsTextAndNestedValuesAsJson() throws IOException {
+        List<Map<String, String>> rows = jsonl("{\"task\":\"x\",\"n\":3,\"ok\":true,\"tags\":[\"a\"],\"meta\":{\"k\":1},\"gone\":null}\n");
+
+        assertThat(rows).containsExactly(Map.of("task", "x", "n", "3", "ok", "true", "tags", "[\"a\"]", "meta", "{\"k\":1}"));
+    }
+
+    @Test
+    void jsonlSkipsBlankLinesAndReportsBadOnes() throws IOException {
+        assertThat(jsonl("\n{\"a\":\"1\"}\n   \n{\"a\":\"2\"}")).hasSize(2);
+        assertThatThrownBy(() -> jsonl("{\"a\":1}\n\n[1]\n")).hasMessageContaining("Line 3").hasMessageContaining("object");
+        assertThatThrownBy(() -> jsonl("{\"a\":")).hasMessageContaining("Line 1").hasMessageContaining("invalid JSON");
+    }
+
+    private static List<Map<String, String>> csv(String text) throws IOException {
+        return readAll(DatasetParser.csv(new BufferedReader(new StringReader(text))));
+    }
+
+    private List<Map<String, String>> jsonl(String text) throws IOException {
+        return readAll(DatasetParser.jsonl(new BufferedReader(new StringReader(text)), objectMapper));
+    }
+
+    private static List<Map<String, String>> readAll(DatasetParser.RowReader reader) throws IOException {
+        List<Map<String, String>> rows = new ArrayList<>();
+        Map<String, String> row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,183 @@
+package com.promptframework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+class HedgedStreamTest {
+
+    private final List<String> streamed = new CopyOnWriteArrayList<>();
+
+    @Test
+    void fastPrimaryIsNotHedged() {
+        ScriptedModel model = new ScriptedModel(new Script(0, List.of("a", "b"), null));
+        AtomicInteger hedgeRequests = new AtomicInteger();
+
+        HedgedStream.Outcome outcome = new HedgedStream(model, "prompt", streamed::add).run(1_000, () -> {
+            hedgeRequests.incrementAndGet();
+            return new RecordingPermit();
+        });
+
+        assertThat(outcome.hedged()).isFalse();
+        assertThat(outcome.hedgeWon()).isFalse();
+        assertThat(outcome.completion().text()).isEqualTo("ab");
+        assertThat(streamed).containsExactly("a", "b");
+        assertThat(hedgeRequests).hasValue(0);
+        assertThat(model.calls).hasValue(1);
+    }
+
+    @Test
+    void hedgeThatStreamsFirstWinsAndOnlyItsTokensAreForwarded() {
+        ScriptedModel model = new ScriptedModel(
+                new Script(5_000, List.of("slow"), null),
+                new Script(0, List.of("fast", "er"), null));
+        RecordingPermit hedgePermit = new RecordingPermit();
+
+        HedgedStream.Outcome outcome = new HedgedStream(model, "prompt", streamed::add).run(20, () -> hedgePermit);
+
+        assertThat(outcome.hedged()).isTrue();
+        assertThat(outcome.hedgeWon()).isTrue();
+        assertThat(outcome.savedMs()).isGreaterThanOrEqualTo(0);
+        assertThat(outcome.completion().text()).isEqualTo("faster");
+        assertThat(streamed).containsExactly("fast", "er");
+        assertThat(hedgePermit.outcome).isEqualTo("success");
+    }
+
+    @Test
+    void primaryStillWinsWhenItStreamsBeforeTheHedge() {
+        ScriptedModel model = new ScriptedModel(
+                new Script(100, List.of("primary"), null),
+                new Script(5_000, List.of("hedge"), null));
+
+        HedgedStream.Outcome outcome = new HedgedStream(model, "prompt", streamed::add)
+                .run(20, RecordingPermit::new);
+
+        assertThat(outcome.hedged()).isTrue();
+        assertThat(outcome.hedgeWon()).isFalse();
+        assertThat(streamed).containsExactly("primary");
+    }
+
+    @Test
+    void noHedgeIsSentWithoutCapacity() {
+        ScriptedModel model = new ScriptedModel(new Script(100, List.of("late"), null));
+
+        HedgedStream.Outcome outcome = new HedgedStream(model, "prompt", streamed::add).run(10, () -> null);
+
+        assertThat(outcome.hedged()).isFalse();
+        assertThat(outcome.completion().text()).isEqualTo("late");
+        assertThat(model.calls).hasValue(1);
+    }
+
+    @Test
+    void failsOnlyOnceEveryAttemptHasFailed() {
+        ScriptedModel model = new ScriptedModel(
+                new Script(100, List.of(), new IllegalStateException("primary down")),
+                new Script(0, List.of(), new IllegalStateException("hedge down")));
+        RecordingPermit hedgePermit = new RecordingPermit();
+
+        HedgedStream stream = new HedgedStream(model, "prompt", streamed::add);
+
+        // the hedge fails first, at ~10ms
+        assertThatThrownBy(() -> stream.run(10, () -> hedgePermit))
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("hedge down");
+        assertThat(hedgePermit.outcome).isEqualTo("failed");
+        assertThat(streamed).isEmpty();
+
+        // the primary fails first, at ~50ms, and the hedge at ~110ms
+        ScriptedModel primaryFirst = new ScriptedModel(
+                new Script(50, List.of(), new IllegalStateException("primary down")),
+                new Script(100, List.of(), new IllegalStateException("hedge down")));
+
+        assertThatThrownBy(() -> new HedgedStream(primaryFirst, "prompt", streamed::add).run(10, RecordingPermit::new))
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("primary down");
+    }
+
+    @Test
+    void hedgeFailureLeavesThePrimaryToFinish() {
+        ScriptedModel model = new ScriptedModel(
+                new Script(100, List.of("ok"), null),
+                new Script(0, List.of(), new IllegalStateException("hedge down")));
+
+        HedgedStream.Outcome outcome = new HedgedStream(model, "prompt", streamed::add)
+                .run(10, RecordingPermit::new);
+
+        assertThat(outcome.hedged()).isTrue();
+        assertThat(outcome.hedgeWon()).isFalse();
+        assertThat(outcome.completion().text()).isEqualTo("ok");
+    }
+
+    private record Script(long delayMs, List<String> tokens, RuntimeException error) {
+
+    }
+
+    /**
+     * Answers each call with the next script; calls block for the script's
+     * delay, and give up quietly when interrupted as a losing attempt.
+     */
+    private static final class ScriptedModel implements StreamingChatLanguageModel {
+
+        private final Queue<Script> scripts;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        ScriptedModel(Script... scripts) {
+            this.scripts = new ConcurrentLinkedQueue<>(List.of(scripts));
+        }
+
+        @Override
+        public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+            calls.incrementAndGet();
+            Script script = scripts.remove();
+            try {
+                Thread.sleep(Duration.ofMillis(script.delayMs()));
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (script.error() != null) {
+                handler.onError(script.error());
+                return;
+            }
+            script.tokens().forEach(handler::onNext);
+            handler.onComplete(Response.from(AiMessage.from(String.join("", script.tokens())),
+                    new TokenUsage(1, script.tokens().size())));
+        }
+    }
+
+    private static final class RecordingPermit implements ProviderRateLimiter.Permit {
+
+        private volatile String outcome;
+
+        @Override
+        public void success(int actualTokens) {
+            outcome = "success";
+        }
+
+        @Override
+        public void rateLimited(Duration retryAfter) {
+            outcome = "rateLimited";
+        }
+
+        @Override
+        public void failed() {
+            outcome = "failed";
+        }
+    }
+}
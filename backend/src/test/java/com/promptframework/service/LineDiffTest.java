@@ -0,0 +1,96 @@
+package com.promptframework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.promptframework.model.dto.VersionDiff;
+
+class LineDiffTest {
+
+    @Test
+    void identicalTextsAreAllEqual() {
+        assertThat(LineDiff.diff("a\nb", "a\nb")).containsExactly(equal("a"), equal("b"));
+    }
+
+    @Test
+    void insertedAndRemovedLinesKeepTheirPosition() {
+        assertThat(LineDiff.diff("a\nb\nc", "a\nx\nb\nc")).containsExactly(equal("a"), added("x"), equal("b"), equal("c"));
+        assertThat(LineDiff.diff("a\nb\nc", "a\nc")).containsExactly(equal("a"), removed("b"), equal("c"));
+    }
+
+    @Test
+    void changedLineIsRemovedThenAdded() {
+        assertThat(LineDiff.diff("intro\nold\noutro", "intro\nnew\noutro"))
+                .containsExactly(equal("intro"), removed("old"), added("new"), equal("outro"));
+    }
+
+    @Test
+    void middleIsMatchedByLongestCommonSubsequence() {
+        List<VersionDiff.Line> lines = LineDiff.diff("h\na\nb\nc\nd\nt", "h\nb\nx\nd\ny\nt");
+
+        assertThat(lines.stream().filter(line -> line.getType().equals("EQUAL")).map(VersionDiff.Line::getText))
+                .containsExactly("h", "b", "d", "t");
+        assertReconstructs(lines, "h\na\nb\nc\nd\nt", "h\nb\nx\nd\ny\nt");
+    }
+
+    @Test
+    void trailingNewlineIsALineOfItsOwn() {
+        assertThat(LineDiff.diff("a", "a\n")).containsExactly(equal("a"), added(""));
+    }
+
+    @Test
+    void emptyTextIsOneEmptyLine() {
+        assertThat(LineDiff.diff("", "a")).containsExactly(removed(""), added("a"));
+        assertThat(LineDiff.diff("", "")).containsExactly(equal(""));
+    }
+
+    @Test
+    void repeatedLinesAreNotMatchedTwice() {
+        List<VersionDiff.Line> lines = LineDiff.diff("x\nx\nx", "x\nx");
+
+        assertThat(lines).filteredOn(line -> line.getType().equals("REMOVED")).hasSize(1);
+        assertReconstructs(lines, "x\nx\nx", "x\nx");
+    }
+
+    @Test
+    void middleTooLargeForTheTableIsReplacedWhole() {
+        String from = numbered("a", 2_001);
+        String to = numbered("b", 2_001);
+
+        List<VersionDiff.Line> lines = LineDiff.diff("top\n" + from + "\nend", "top\n" + to + "\nend");
+
+        assertThat(lines).hasSize(2 + 2 * 2_001);
+        assertThat(lines.get(0)).isEqualTo(equal("top"));
+        assertThat(lines.subList(1, 2_002)).allMatch(line -> line.getType().equals("REMOVED"));
+        assertThat(lines.subList(2_002, 4_003)).allMatch(line -> line.getType().equals("ADDED"));
+        assertThat(lines.get(lines.size() - 1)).isEqualTo(equal("end"));
+    }
+
+    private static void assertReconstructs(List<VersionDiff.Line> lines, String from, String to) {
+        assertThat(lines.stream().filter(line -> !line.getType().equals("ADDED"))
+                .map(VersionDiff.Line::getText).collect(Collectors.joining("\n"))).isEqualTo(from);
+        assertThat(lines.stream().filter(line -> !line.getType().equals("REMOVED"))
+                .map(VersionDiff.Line::getText).collect(Collectors.joining("\n"))).isEqualTo(to);
+    }
+
+    private static String numbered(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> prefix + i).collect(Collectors.joining("\n"));
+    }
+
+    private static VersionDiff.Line equal(String text) {
+        return new VersionDiff.Line("EQUAL", text);
+    }
+
+    private static VersionDiff.Line added(String text) {
+        return new VersionDiff.Line("ADDED", text);
+    }
+
+    private static VersionDiff.Line removed(String text) {
+        return new VersionDiff.Line("REMOVED", text);
+    }
+}
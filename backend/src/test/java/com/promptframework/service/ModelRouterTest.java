@@ -0,0 +1,163 @@
+package com.promptframework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.promptframework.config.RoutingProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ModelRouterTest {
+
+    private static final ExecutionEngine.Target MINI = new ExecutionEngine.Target("openai", "gpt-4o-mini");
+    private static final ExecutionEngine.Target HAIKU = new ExecutionEngine.Target("anthropic", "claude-3-haiku");
+    private static final ExecutionEngine.Target STUB = new ExecutionEngine.Target("local", "stub");
+
+    private RoutingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ModelRouter router;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RoutingProperties();
+        properties.setEquivalents(Map.of("fast-chat", List.of("openai:gpt-4o-mini", "anthropic:claude-3-haiku", "local:stub")));
+        properties.setMinSamples(2);
+        properties.setExploreFraction(0);
+        properties.setEwmaAlpha(0.5);
+        meterRegistry = new SimpleMeterRegistry();
+        router = new ModelRouter(properties, meterRegistry);
+        router.init();
+    }
+
+    @Test
+    void parsesGroupsInListOrder() {
+        assertThat(router.isGroup("fast-chat")).isTrue();
+        assertThat(router.isGroup("slow-chat")).isFalse();
+        assertThat(router.members("fast-chat")).containsExactly(MINI, HAIKU, STUB);
+    }
+
+    @Test
+    void unknownGroupIsABadRequest() {
+        assertThatThrownBy(() -> router.members("slow-chat"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Unknown model group: slow-chat");
+        assertThatThrownBy(() -> router.choose("slow-chat", target -> true))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void invalidMembersFailAtStartup() {
+        for (List<String> members : List.of(List.of("gpt-4o-mini"), List.of(":gpt-4o-mini"), List.of("openai:"), List.<String>of())) {
+            properties.setEquivalents(Map.of("broken", members));
+
+            assertThatThrownBy(new ModelRouter(properties, meterRegistry)::init)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("ai.routing.equivalents.broken");
+        }
+    }
+
+    @Test
+    void unmeasuredMembersAreTriedFirst() {
+        measure(MINI, 10, 10);
+        measure(HAIKU, 10, 10);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(router.choose("fast-chat", target -> true)).isEqualTo(STUB);
+        }
+    }
+
+    @Test
+    void everyUnmeasuredMemberGetsTried() {
+        Set<ExecutionEngine.Target> chosen = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            chosen.add(router.choose("fast-chat", target -> true));
+        }
+
+        assertThat(chosen).containsExactlyInAnyOrder(MINI, HAIKU, STUB);
+    }
+
+    @Test
+    void lowestExpectedLatencyWins() {
+        measure(MINI, 300, 300);
+        measure(HAIKU, 100, 100);
+        measure(STUB, 200, 200);
+
+        assertThat(router.choose("fast-chat", target -> true)).isEqualTo(HAIKU);
+    }
+
+    @Test
+    void failuresCountAgainstAFastMember() {
+        measure(MINI, 300, 300);
+        measure(HAIKU, 100, 100);
+        measure(STUB, 200, 200);
+        // error rate 0.75 makes haiku's expected time 100 / 0.25 = 400
+        router.record("anthropic", "claude-3-haiku", 5, true);
+        router.record("anthropic", "claude-3-haiku", 5, true);
+
+        assertThat(router.choose("fast-chat", target -> true)).isEqualTo(STUB);
+    }
+
+    @Test
+    void failedCallsDoNotMoveTheLatency() {
+        measure(MINI, 100, 100);
+        router.record("openai", "gpt-4o-mini", 1, true);
+
+        assertThat(meterRegistry.get("llm.route.latency.ewma").tag("model", "gpt-4o-mini").gauge().value())
+                .isEqualTo(100.0);
+        assertThat(meterRegistry.get("llm.route.error.ewma").tag("model", "gpt-4o-mini").gauge().value())
+                .isEqualTo(0.5);
+    }
+
+    @Test
+    void tieGoesToTheFirstMemberInListOrder() {
+        measure(MINI, 150, 150);
+        measure(HAIKU, 150, 150);
+        measure(STUB, 150, 150);
+
+        assertThat(router.choose("fast-chat", target -> true)).isEqualTo(MINI);
+        assertThat(router.choose("fast-chat", target -> !target.equals(MINI))).isEqualTo(HAIKU);
+    }
+
+    @Test
+    void membersThatNeverSucceededTieAtInfinityAndTheFirstWins() {
+        for (ExecutionEngine.Target target : List.of(MINI, HAIKU, STUB)) {
+            router.record(target.provider(), target.modelName(), 5, true);
+            router.record(target.provider(), target.modelName(), 5, true);
+        }
+
+        assertThat(router.choose("fast-chat", target -> true)).isEqualTo(MINI);
+    }
+
+    @Test
+    void unavailableMembersArePassedOver() {
+        measure(MINI, 100, 100);
+        measure(HAIKU, 200, 200);
+        measure(STUB, 300, 300);
+
+        assertThat(router.choose("fast-chat", target -> !target.provider().equals("openai"))).isEqualTo(HAIKU);
+    }
+
+    @Test
+    void allMembersAreCandidatesWhenNoneIsAvailable() {
+        measure(MINI, 300, 300);
+        measure(HAIKU, 100, 100);
+        measure(STUB, 200, 200);
+
+        assertThat(router.choose("fast-chat", target -> false)).isEqualTo(HAIKU);
+    }
+
+    // two successful calls, enough to pass minSamples
+    private void measure(ExecutionEngine.Target target, long firstMs, long secondMs) {
+        router.record(target.provider(), target.modelName(), firstMs, false);
+        router.record(target.provider(), target.modelName(), secondMs, false);
+    }
+}
@@ -0,0 +1,94 @@
+package com.promptframework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.MountableFile;
+
+import com.promptframework.model.dto.PromptCreateRequest;
+import com.promptframework.model.entity.PromptVersionHeader;
+
+/**
+ * Many writers saving versions of one prompt at once, against the real
+ * schema: every save must succeed and the numbers must come out as 1..n.
+ * Skipped where Docker is not available.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class PromptServiceVersionAllocationTest {
+
+    private static final int WRITERS = 16;
+    private static final int SAVES_PER_WRITER = 10;
+
+    // the same image and init script as docker-compose
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCopyFileToContainer(MountableFile.forClasspathResource("db/init.sql"),
+                    "/docker-entrypoint-initdb.d/init.sql");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private PromptService promptService;
+
+    @Test
+    void concurrentSavesGetGapFreeDistinctVersionNumbers() throws Exception {
+        PromptCreateRequest request = new PromptCreateRequest();
+        request.setName("version allocation");
+        request.setInitialContent("Initial prompt for {task}");
+        Long promptId = promptService.createPrompt(request).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> writers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(WRITERS)) {
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    List<Integer> numbers = new ArrayList<>();
+                    for (int i = 0; i < SAVES_PER_WRITER; i++) {
+                        String content = "Prompt for {task}, writer " + writer + ", save " + i;
+                        numbers.add(promptService.createNewVersion(promptId, content).getVersionNumber());
+                    }
+                    return numbers;
+                }));
+            }
+            start.countDown();
+
+            List<Integer> allocated = new ArrayList<>();
+            for (Future<List<Integer>> writer : writers) {
+                allocated.addAll(writer.get(2, TimeUnit.MINUTES));
+            }
+
+            // version 1 came with the prompt
+            List<Integer> expected = IntStream.rangeClosed(2, 1 + WRITERS * SAVES_PER_WRITER).boxed().toList();
+            assertThat(allocated).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(expected);
+        }
+
+        List<Integer> stored = promptService.getPromptById(promptId).getVersions().stream()
+                .map(PromptVersionHeader::getVersionNumber)
+                .toList();
+        assertThat(stored).isEqualTo(IntStream.rangeClosed(1, 1 + WRITERS * SAVES_PER_WRITER).boxed().toList());
+    }
+}
@@ -0,0 +1,141 @@
+package com.promptframework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.promptframework.config.ExecutionProperties;
+import com.promptframework.config.RateLimitProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProviderRateLimiterTest {
+
+    private RateLimitProperties properties;
+    private ExecutionProperties executionProperties;
+    private ProviderRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        executionProperties = new ExecutionProperties();
+        executionProperties.setMaxConcurrencyPerModel(4);
+        limiter = new ProviderRateLimiter(properties, executionProperties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void concurrencyIsCappedByTheModelBound() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 10)).isNotNull();
+        }
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 10)).isNull();
+    }
+
+    @Test
+    void releasingAPermitFreesItsSlotOnce() {
+        ProviderRateLimiter.Permit first = limiter.tryAcquire("openai", "gpt-4o", "key", 10);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("openai", "gpt-4o", "key", 10);
+        }
+
+        first.failed();
+        first.failed();
+
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 10)).isNotNull();
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 10)).isNull();
+    }
+
+    @Test
+    void rateLimitCutsTheLimitAndPausesTheKey() {
+        limiter.tryAcquire("openai", "gpt-4o", "key", 10).rateLimited(Duration.ofMinutes(1));
+
+        assertThat(limiter.currentLimit("openai", "gpt-4o", "key")).isEqualTo(2.0);
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 10)).isNull();
+    }
+
+    @Test
+    void limitRecoversAdditivelyAndNeverDropsBelowOne() {
+        properties.setInitialBackoff(Duration.ZERO);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("openai", "gpt-4o", "key", 10).rateLimited(null);
+        }
+        assertThat(limiter.currentLimit("openai", "gpt-4o", "key")).isEqualTo(1.0);
+
+        limiter.tryAcquire("openai", "gpt-4o", "key", 10).success(10);
+        limiter.tryAcquire("openai", "gpt-4o", "key", 10).success(10);
+
+        // +1/limit per success: 1 -> 2 -> 2.5
+        assertThat(limiter.currentLimit("openai", "gpt-4o", "key")).isEqualTo(2.5);
+    }
+
+    @Test
+    void keysModelsAndProvidersAreLimitedSeparately() {
+        limiter.tryAcquire("openai", "gpt-4o", "key", 10).rateLimited(Duration.ofMinutes(1));
+
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "other-key", 10)).isNotNull();
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", null, 10)).isNotNull();
+        assertThat(limiter.tryAcquire("openai", "gpt-4o-mini", "key", 10)).isNotNull();
+        assertThat(limiter.tryAcquire("anthropic", "gpt-4o", "key", 10)).isNotNull();
+    }
+
+    @Test
+    void requestBudgetIsEnforcedAcrossReleasedPermits() {
+        properties.setRequestsPerMinute(2);
+
+        limiter.tryAcquire("openai", "gpt-4o", "key", 10).success(10);
+        limiter.tryAcquire("openai", "gpt-4o", "key", 10).success(10);
+
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 10)).isNull();
+    }
+
+    @Test
+    void tokenEstimateIsSettledAgainstActualUsage() {
+        properties.setTokensPerMinute(1000);
+
+        ProviderRateLimiter.Permit permit = limiter.tryAcquire("openai", "gpt-4o", "key", 900);
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 200)).isNull();
+
+        permit.success(100);
+
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 200)).isNotNull();
+    }
+
+    @Test
+    void modelOverridesReplaceTheDefaultBudget() {
+        RateLimitProperties.Budget budget = new RateLimitProperties.Budget();
+        budget.setRequestsPerMinute(1);
+        properties.getModels().put("openai:gpt-4", budget);
+
+        assertThat(limiter.tryAcquire("openai", "gpt-4", "key", 10)).isNotNull();
+        assertThat(limiter.tryAcquire("openai", "gpt-4", "key", 10)).isNull();
+        assertThat(limiter.tryAcquire("openai", "gpt-4o", "key", 10)).isNotNull();
+    }
+
+    @Test
+    void acquireWaitsForAFreeSlot() throws Exception {
+        executionProperties.setMaxConcurrencyPerModel(1);
+        ProviderRateLimiter.Permit held = limiter.acquire("openai", "gpt-4o", "key", 10);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<ProviderRateLimiter.Permit> waiting = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return limiter.acquire("openai", "gpt-4o", "key", 10);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor);
+
+            Thread.sleep(100);
+            assertThat(waiting).isNotDone();
+
+            held.success(10);
+            assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+    }
+}
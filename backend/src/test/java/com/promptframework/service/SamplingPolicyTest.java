@@ -0,0 +1,176 @@
+package com.promptframework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.promptframework.model.dto.TestRunRequest;
+import com.promptframework.model.entity.QualityStats;
+
+class SamplingPolicyTest {
+
+    private static final double Z_95 = 1.959964;
+
+    @Test
+    void normalQuantileMatchesKnownValues() {
+        assertThat(SamplingPolicy.normalQuantile(0.5)).isCloseTo(0, within(1e-9));
+        assertThat(SamplingPolicy.normalQuantile(0.975)).isCloseTo(Z_95, within(1e-6));
+        assertThat(SamplingPolicy.normalQuantile(0.01)).isCloseTo(-2.326348, within(1e-6));
+        // the tail branch
+        assertThat(SamplingPolicy.normalQuantile(1 - 1e-6)).isCloseTo(4.753424, within(1e-5));
+        assertThat(SamplingPolicy.normalQuantile(0.3)).isCloseTo(-SamplingPolicy.normalQuantile(0.7), within(1e-9));
+    }
+
+    @Test
+    void normalQuantileRejectsProbabilitiesOutsideTheOpenInterval() {
+        assertThatThrownBy(() -> SamplingPolicy.normalQuantile(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SamplingPolicy.normalQuantile(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void checksOnlyAtTheLookSchedule() {
+        // looks at 4, 6, 9; the interval is narrow from the start
+        SamplingPolicy.Sampler sampler = new SamplingPolicy.Sampler(1.0, Z_95, null, 0, 4, 1.5);
+
+        assertThat(IntStream.range(0, 3).mapToObj(i -> sampler.record(0.5 + i * 0.01))).containsOnlyNulls();
+        SamplingPolicy.Decision decision = sampler.record(0.5);
+
+        assertThat(decision.reason()).isEqualTo(SamplingPolicy.INTERVAL_WIDTH);
+        assertThat(decision.samples()).isEqualTo(4);
+        assertThat(decision.qualityMean()).isCloseTo(0.5075, within(1e-9));
+        assertThat(decision.zScore()).isNull();
+        assertThat(sampler.getDecision()).isSameAs(decision);
+    }
+
+    @Test
+    void intervalWidthStopsOnceTheIntervalIsNarrowEnough() {
+        SamplingPolicy.Sampler sampler = new SamplingPolicy.Sampler(0.1, Z_95, null, 0, 10, 1.25);
+
+        SamplingPolicy.Decision decision = recordUntilDecided(sampler, alternating(0.4, 0.6, 1_000));
+
+        // sd ~0.1, so 2 * 1.96 * 0.1 / sqrt(n) <= 0.1 needs n >= 16; looks fall at 10, 13 and 17
+        assertThat(decision.reason()).isEqualTo(SamplingPolicy.INTERVAL_WIDTH);
+        assertThat(decision.samples()).isEqualTo(17);
+        assertThat(2 * decision.intervalHalfWidth()).isLessThanOrEqualTo(0.1);
+    }
+
+    @Test
+    void differenceToTheBaselineStopsTheRun() {
+        SamplingPolicy.Sampler sampler = new SamplingPolicy.Sampler(null, Z_95, baseline(100, 0.5, 0.01), 3.0, 10, 1.25);
+
+        SamplingPolicy.Decision decision = recordUntilDecided(sampler, alternating(0.85, 0.95, 1_000));
+
+        assertThat(decision.reason()).isEqualTo(SamplingPolicy.SIGNIFICANT);
+        assertThat(decision.samples()).isEqualTo(10);
+        assertThat(decision.zScore()).isGreaterThan(3.0);
+    }
+
+    @Test
+    void runLikeTheBaselineIsNeverSignificant() {
+        SamplingPolicy.Sampler sampler = new SamplingPolicy.Sampler(null, Z_95, baseline(100, 0.5, 0.01), 3.0, 10, 1.25);
+
+        for (double score : alternating(0.4, 0.6, 500)) {
+            assertThat(sampler.record(score)).isNull();
+        }
+        assertThat(sampler.getDecision()).isNull();
+    }
+
+    @Test
+    void zeroVarianceOnBothSidesIsNotSignificant() {
+        // equal means would give 0/0 and different ones +-infinity without the guard
+        SamplingPolicy.Sampler sameMean = new SamplingPolicy.Sampler(null, Z_95, baseline(50, 0.8, 0.0), 3.0, 5, 1.25);
+        SamplingPolicy.Sampler otherMean = new SamplingPolicy.Sampler(null, Z_95, baseline(50, 0.5, 0.0), 3.0, 5, 1.25);
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(sameMean.record(0.8)).isNull();
+            assertThat(otherMean.record(0.8)).isNull();
+        }
+    }
+
+    @Test
+    void zeroVarianceOnBothSidesStillStopsOnIntervalWidth() {
+        SamplingPolicy.Sampler sampler = new SamplingPolicy.Sampler(0.1, Z_95, baseline(50, 0.5, 0.0), 3.0, 5, 1.25);
+
+        SamplingPolicy.Decision decision = recordUntilDecided(sampler, alternating(0.8, 0.8, 100));
+
+        assertThat(decision.reason()).isEqualTo(SamplingPolicy.INTERVAL_WIDTH);
+        assertThat(decision.intervalHalfWidth()).isZero();
+        assertThat(decision.zScore()).isNull();
+    }
+
+    @Test
+    void zeroVarianceInTheRunAloneIsMeasuredAgainstTheBaselineSpread() {
+        SamplingPolicy.Sampler sampler = new SamplingPolicy.Sampler(null, Z_95, baseline(100, 0.5, 0.01), 3.0, 5, 1.25);
+
+        SamplingPolicy.Decision decision = recordUntilDecided(sampler, alternating(0.9, 0.9, 100));
+
+        // standard error sqrt(0.01 / 100) = 0.01
+        assertThat(decision.reason()).isEqualTo(SamplingPolicy.SIGNIFICANT);
+        assertThat(decision.zScore()).isCloseTo(40.0, within(1e-9));
+    }
+
+    @Test
+    void scoresAfterTheStopAreIgnoredAndNoMoreInputsAreHandedOut() {
+        SamplingPolicy.Sampler sampler = new SamplingPolicy.Sampler(1.0, Z_95, null, 0, 2, 1.25);
+        Iterator<Integer> inputs = sampler.until(IntStream.range(0, 10).iterator());
+
+        List<Integer> taken = new ArrayList<>();
+        while (inputs.hasNext()) {
+            taken.add(inputs.next());
+            sampler.record(0.5);
+        }
+
+        assertThat(taken).containsExactly(0, 1);
+        assertThat(sampler.getTaken()).isEqualTo(2);
+        assertThat(sampler.record(0.0)).isNull();
+        assertThat(sampler.getDecision().samples()).isEqualTo(2);
+    }
+
+    @Test
+    void samplerForUsesTheConfiguredDefaults() {
+        SamplingPolicy policy = new SamplingPolicy();
+        ReflectionTestUtils.setField(policy, "minSamples", 30);
+        ReflectionTestUtils.setField(policy, "lookGrowth", 1.25);
+        ReflectionTestUtils.setField(policy, "defaultConfidence", 0.95);
+        ReflectionTestUtils.setField(policy, "defaultSignificance", 0.05);
+        TestRunRequest.Sampling request = new TestRunRequest.Sampling();
+        request.setMaxIntervalWidth(0.5);
+
+        SamplingPolicy.Sampler sampler = policy.samplerFor(request, 1_000, null);
+        SamplingPolicy.Decision decision = recordUntilDecided(sampler, alternating(0.4, 0.6, 100));
+
+        assertThat(decision.samples()).isEqualTo(30);
+        // 95% interval of sd ~0.1017 over 30 samples
+        assertThat(decision.intervalHalfWidth()).isCloseTo(Z_95 * Math.sqrt(0.3 / 29 / 30), within(1e-6));
+    }
+
+    private static SamplingPolicy.Decision recordUntilDecided(SamplingPolicy.Sampler sampler, List<Double> scores) {
+        for (double score : scores) {
+            SamplingPolicy.Decision decision = sampler.record(score);
+            if (decision != null) {
+                return decision;
+            }
+        }
+        throw new AssertionError("no decision after " + scores.size() + " scores");
+    }
+
+    private static List<Double> alternating(double a, double b, int count) {
+        return IntStream.range(0, count).mapToObj(i -> i % 2 == 0 ? a : b).toList();
+    }
+
+    private static QualityStats baseline(int count, double mean, double variance) {
+        QualityStats stats = new QualityStats();
+        stats.setCount(count);
+        stats.setMean(mean);
+        stats.setVariance(variance);
+        return stats;
+    }
+}
@@ -0,0 +1,89 @@
+package com.promptframework.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.promptframework.config.ModelPricingProperties;
+import com.promptframework.template.PromptTemplate;
+
+class TokenCounterTest {
+
+    private ModelPricingProperties pricing;
+    private TokenCounter tokenCounter;
+
+    @BeforeEach
+    void setUp() {
+        pricing = new ModelPricingProperties();
+        tokenCounter = new TokenCounter(pricing);
+    }
+
+    @Test
+    void emptyTextHasNoTokens() {
+        assertThat(tokenCounter.count("openai", "gpt-4o-mini", null)).isZero();
+        assertThat(tokenCounter.count("openai", "gpt-4o-mini", "")).isZero();
+    }
+
+    @Test
+    void countsWithTheModelsEncoding() {
+        assertThat(tokenCounter.count("openai", "gpt-4", "hello world")).isEqualTo(2);
+        assertThat(tokenCounter.count("openai", "gpt-4o-mini", "hello world")).isEqualTo(2);
+    }
+
+    @Test
+    void unknownModelsFallBackToADefaultEncoding() {
+        String text = "The quick brown fox jumps over the lazy dog.";
+        int reference = tokenCounter.count("openai", "gpt-4", text);
+
+        assertThat(tokenCounter.count("anthropic", "claude-3-haiku-20240307", text)).isEqualTo(reference);
+        assertThat(tokenCounter.count("openai", "no-such-model", text)).isEqualTo(reference);
+    }
+
+    @Test
+    void configuredTokenizerIsUsed() {
+        ModelPricingProperties.Model model = new ModelPricingProperties.Model();
+        model.setTokenizer("gpt-4o");
+        pricing.getModels().put("anthropic:claude-3-haiku-20240307", model);
+        String text = "Résumé of the naïve café's ünïcödé menu";
+
+        assertThat(tokenCounter.count("anthropic", "claude-3-haiku-20240307", text))
+                .isEqualTo(tokenCounter.count("openai", "gpt-4o", text));
+    }
+
+    @Test
+    void promptCountStaysCloseToTheRenderedPrompt() {
+        PromptTemplate template = PromptTemplate.compile("Summarize the following text: {text}\nAudience: {audience}.");
+        Map<String, String> values = Map.of(
+                "text", "Quarterly revenue rose 12% on strong subscription growth. " + "x".repeat(400),
+                "audience", "executives");
+
+        int rendered = tokenCounter.count("openai", "gpt-4", template.render(values));
+        int counted = tokenCounter.countPrompt("openai", "gpt-4", template, values);
+
+        // each placeholder splits the text twice where BPE might have merged across
+        assertThat(counted).isBetween(rendered, rendered + 4);
+        // second pass is served from the literal and value caches
+        assertThat(tokenCounter.countPrompt("openai", "gpt-4", template, values)).isEqualTo(counted);
+    }
+
+    @Test
+    void placeholdersWithoutValuesCountAsNothing() {
+        PromptTemplate template = PromptTemplate.compile("Translate {text} into {language}.");
+
+        assertThat(tokenCounter.countPrompt("openai", "gpt-4", template, Map.of()))
+                .isEqualTo(tokenCounter.count("openai", "gpt-4", template.getLiteralText()));
+    }
+
+    @Test
+    void repeatedPlaceholdersCountEachTime() {
+        PromptTemplate once = PromptTemplate.compile("{word}");
+        PromptTemplate twice = PromptTemplate.compile("{word}{word}");
+        Map<String, String> values = Map.of("word", " hello");
+
+        assertThat(tokenCounter.countPrompt("openai", "gpt-4", twice, values))
+                .isEqualTo(2 * tokenCounter.countPrompt("openai", "gpt-4", once, values));
+    }
+}
@@ -0,0 +1,75 @@
+package com.promptframework.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class PromptTemplateTest {
+
+    @Test
+    void rendersSingleAndDoubleBracePlaceholders() {
+        PromptTemplate template = PromptTemplate.compile("Hi {name}, about {{ topic }}: {name}");
+
+        assertThat(template.render(Map.of("name", "Ada", "topic", "engines")))
+                .isEqualTo("Hi Ada, about engines: Ada");
+        assertThat(template.getVariables()).containsExactly("name", "topic");
+        assertThat(template.getPlaceholderNames()).containsExactly("name", "topic", "name");
+    }
+
+    @Test
+    void keepsBracesThatDoNotEncloseAName() {
+        String source = "Reply as {\"answer\": 1} or {} or {1st} or {{ }} about {topic}";
+        PromptTemplate template = PromptTemplate.compile(source);
+
+        assertThat(template.getVariables()).containsExactly("topic");
+        assertThat(template.render(Map.of("topic", "x")))
+                .isEqualTo("Reply as {\"answer\": 1} or {} or {1st} or {{ }} about x");
+    }
+
+    @Test
+    void keepsMissingPlaceholdersVerbatim() {
+        PromptTemplate template = PromptTemplate.compile("{{a}} and {b}");
+
+        assertThat(template.render(Map.of())).isEqualTo("{{a}} and {b}");
+        assertThat(template.render(null)).isEqualTo("{{a}} and {b}");
+        Map<String, String> values = new HashMap<>();
+        values.put("a", null);
+        values.put("b", "B");
+        assertThat(template.render(values)).isEqualTo("{{a}} and B");
+        assertThat(template.missingVariables(values)).containsExactly("a");
+    }
+
+    @Test
+    void unclosedBraceStaysLiteral() {
+        PromptTemplate template = PromptTemplate.compile("start {name and {{other");
+
+        assertThat(template.getVariables()).isEmpty();
+        assertThat(template.render(Map.of("name", "x"))).isEqualTo("start {name and {{other");
+    }
+
+    @Test
+    void acceptsDottedAndDashedNames() {
+        PromptTemplate template = PromptTemplate.compile("{user.first-name}{_id}");
+
+        assertThat(template.getVariables()).containsExactly("user.first-name", "_id");
+        assertThat(template.render(Map.of("user.first-name", "A", "_id", "7"))).isEqualTo("A7");
+    }
+
+    @Test
+    void literalTextJoinsTheTextAroundPlaceholders() {
+        PromptTemplate template = PromptTemplate.compile("Summarize {doc} in {n} words.");
+
+        assertThat(template.getLiteralText()).isEqualTo("Summarize  in  words.");
+        assertThat(PromptTemplate.compile("").render(Map.of())).isEmpty();
+    }
+
+    @Test
+    void valuesAreNotReparsed() {
+        PromptTemplate template = PromptTemplate.compile("{a}");
+
+        assertThat(template.render(Map.of("a", "{b}", "b", "no"))).isEqualTo("{b}");
+    }
+}
@@ -2,10 +2,34 @@ import { useState } from 'react'
 import { Play, Loader2, Plus, Trash2, Zap, X } from 'lucide-react'
 import toast from 'react-hot-toast'
 
+// Reads a server-sent event stream from a fetch response (EventSource cannot POST).
+async function readEventStream(response, onEvent) {
+  const reader = response.body.getReader()
+  const decoder = new TextDecoder()
+  let buffer = ''
+  for (;;) {
+    const { value, done } = await reader.read()
+    if (done) break
+    buffer += decoder.decode(value, { stream: true })
+    let boundary
+    while ((boundary = buffer.indexOf('\n\n')) !== -1) {
+      const raw = buffer.slice(0, boundary)
+      buffer = buffer.slice(boundary + 2)
+      let event = 'message'
+      const data = []
+      raw.split('\n').forEach(line => {
+        if (line.startsWith('event:')) event = line.slice(6).trim()
+        else if (line.startsWith('data:')) data.push(line.slice(5))
+      })
+      if (data.length > 0) onEvent(event, JSON.parse(data.join('\n')))
+    }
+  }
+}
+
 function QuickTest({ onClose }) {
   const [promptContent, setPromptContent] = useState('')
   const [testInputs, setTestInputs] = useState([{ question: '' }])
-  const [aiProvider] = useState('openai')
+  const [aiProvider, setAiProvider] = useState('openai')
   const [modelName, setModelName] = useState('gpt-3.5-turbo')
   const [results, setResults] = useState(null)
   const [testing, setTesting] = useState(false)
@@ -26,6 +50,27 @@ function QuickTest({ onClose }) {
     setTestInputs(updated)
   }
 
+  const updateResult = (index, update) => {
+    setResults(prev => {
+      if (!prev) return prev
+      const next = [...prev.results]
+      next[index] = update(next[index])
+      return { ...prev, results: next }
+    })
+  }
+
+  const handleStreamEvent = (event, data) => {
+    if (event === 'token') {
+      updateResult(data.index, res => ({ ...res, aiResponse: res.aiResponse + data.token }))
+    } else if (event === 'complete') {
+      updateResult(data.index, () => data.result)
+    } else if (event === 'error') {
+      updateResult(data.index, res => ({ ...res, pending: false, aiResponse: `Error: ${data.message}` }))
+    } else if (event === 'metrics') {
+      setResults(prev => ({ ...prev, metrics: data }))
+    }
+  }
+
   const runQuickTest = async () => {
     if (!promptContent.trim()) {
       toast.error('Please enter a prompt template')
@@ -40,10 +85,11 @@ function QuickTest({ onClose }) {
     try {
       const formattedInputs = testInputs.map(input => ({ question: input.question }))
 
-      const response = await fetch('http://localhost:8080/api/quick-test', {
+      const response = await fetch('http://localhost:8080/api/quick-test/stream', {
         method: 'POST',
         headers: { 
           'Content-Type': 'application/json',
+          'Accept': 'text/event-stream',
           'X-API-KEY': apiKey
         },
         body: JSON.stringify({
@@ -55,9 +101,12 @@ function QuickTest({ onClose }) {
       })
 
       if (!response.ok) throw new Error('Test failed')
-      
-      const data = await response.json()
-      setResults(data)
+
+      setResults({
+        results: formattedInputs.map(input => ({ inputVariables: input, aiResponse: '', pending: true })),
+        metrics: null
+      })
+      await readEventStream(response, handleStreamEvent)
       toast.success('Quick test completed!')
     } catch (error) {
       console.error(error)
@@ -78,13 +127,19 @@ function QuickTest({ onClose }) {
         <div className="flex items-center gap-3">
            {/* Model Selector */}
            <select 
-             value={modelName}
-             onChange={(e) => setModelName(e.target.value)}
+             value={`${aiProvider}:${modelName}`}
+             onChange={(e) => {
+               const [provider, ...model] = e.target.value.split(':')
+               setAiProvider(provider)
+               setModelName(model.join(':'))
+             }}
              className="text-sm border border-gray-300 rounded-lg px-3 py-1 bg-gray-50 outline-none focus:border-blue-500"
            >
-             <option value="gpt-3.5-turbo">GPT-3.5 Turbo</option>
-             <option value="gpt-4">GPT-4</option>
-             <option value="gpt-4o">GPT-4o</option>
+             <option value="openai:gpt-3.5-turbo">GPT-3.5 Turbo</option>
+             <option value="openai:gpt-4">GPT-4</option>
+             <option value="openai:gpt-4o">GPT-4o</option>
+             <option value="anthropic:claude-3-haiku-20240307">Claude 3 Haiku</option>
+             <option value="fastest:fast-chat">Fastest of fast-chat</option>
            </select>
 
            {/* FIXED: Added Close Button using onClose */}
@@ -174,13 +229,20 @@ function QuickTest({ onClose }) {
           ) : (
             <div className="space-y-4 overflow-y-auto max-h-[600px] pr-2 custom-scrollbar">
               {/* Metrics Header */}
-              <div className="grid grid-cols-3 gap-2 mb-4">
+              {results.metrics && (
+              <div className="grid grid-cols-4 gap-2 mb-4">
                  <div className="bg-white p-3 rounded-lg border border-gray-100 shadow-sm">
                     <div className="text-xs text-gray-500">Latency</div>
                     <div className="font-mono font-bold text-gray-800">
                         {Math.round(results.metrics.averageResponseTimeMs)}ms
                     </div>
                  </div>
+                 <div className="bg-white p-3 rounded-lg border border-gray-100 shadow-sm">
+                    <div className="text-xs text-gray-500">First Token</div>
+                    <div className="font-mono font-bold text-gray-800">
+                        {Math.round(results.metrics.averageTimeToFirstTokenMs)}ms
+                    </div>
+                 </div>
                  <div className="bg-white p-3 rounded-lg border border-gray-100 shadow-sm">
                     <div className="text-xs text-gray-500">Cost (Est)</div>
                     <div className="font-mono font-bold text-gray-800">
@@ -194,6 +256,7 @@ function QuickTest({ onClose }) {
                     </div>
                  </div>
               </div>
+              )}
 
               {results.results.map((res, i) => (
                 <div key={i} className="bg-white p-4 rounded-xl border border-gray-200 shadow-sm">
@@ -203,11 +266,23 @@ function QuickTest({ onClose }) {
                   <div className="prose prose-sm max-w-none text-gray-800 bg-gray-50 p-3 rounded-lg border border-gray-100 font-mono text-xs whitespace-pre-wrap">
                     {res.aiResponse}
                   </div>
+                  {res.pending ? (
+                    <div className="mt-2 flex justify-end text-xs text-gray-400">
+                      <Loader2 className="w-3 h-3 animate-spin" />
+                    </div>
+                  ) : (
                   <div className="mt-2 flex justify-end gap-3 text-xs text-gray-400 font-mono">
+                    {res.timeToFirstTokenMs != null && (
+                      <>
+                        <span>TTFT {res.timeToFirstTokenMs}ms</span>
+                        <span>|</span>
+                      </>
+                    )}
                     <span>{res.responseTimeMs}ms</span>
                     <span>|</span>
                     <span>{res.tokenCount} tokens</span>
                   </div>
+                  )}
                 </div>
               ))}
             </div>
@@ -0,0 +1,41 @@
+import { useState } from 'react'
+import toast from 'react-hot-toast'
+
+const API_BASE = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080/api'
+
+// Stored results carry a preview of long responses; the full text is fetched on demand.
+function ResponseText({ result, className }) {
+  const [fullText, setFullText] = useState(null)
+  const [loading, setLoading] = useState(false)
+
+  const showFull = async () => {
+    setLoading(true)
+    try {
+      const response = await fetch(`${API_BASE}/test-runs/results/${result.id}/body`)
+      if (!response.ok) throw new Error('Failed to load response')
+      setFullText(await response.text())
+    } catch (error) {
+      console.error(error)
+      toast.error('Failed to load full response')
+    } finally {
+      setLoading(false)
+    }
+  }
+
+  return (
+    <>
+      <p className={className}>{fullText ?? result.aiResponse}</p>
+      {result.responseTruncated && fullText === null && (
+        <button
+          onClick={showFull}
+          disabled={loading}
+          className="mt-1 text-xs text-blue-600 hover:underline disabled:opacity-50"
+        >
+          {loading ? 'Loading...' : `Show full response (${result.responseLength} chars)`}
+        </button>
+      )}
+    </>
+  )
+}
+
+export default ResponseText
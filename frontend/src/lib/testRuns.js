@@ -0,0 +1,37 @@
+// POST /test-runs answers 202 with the run id; poll until the job settles.
+export async function waitForTestRun(apiBase, run, { intervalMs = 1000, onProgress } = {}) {
+  let current = run
+  while (current.status === 'RUNNING') {
+    await new Promise(resolve => setTimeout(resolve, intervalMs))
+    const response = await fetch(`${apiBase}/test-runs/${current.id}`)
+    if (!response.ok) throw new Error('Failed to poll test run')
+    current = await response.json()
+    if (onProgress) onProgress(current)
+  }
+  return current
+}
+
+// A finished run of identical prompt text over the same inputs and model, or null.
+// With a key, runs that only got mock responses do not count.
+export async function findReusableRun(apiBase, request, apiKey) {
+  const response = await fetch(`${apiBase}/test-runs/reusable`, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json', 'X-API-KEY': apiKey || '' },
+    body: JSON.stringify(request)
+  })
+  if (response.status === 204 || !response.ok) return null
+  return response.json()
+}
+
+// POST /matrix-runs answers 202 with every cell; poll until the whole matrix settles.
+export async function waitForMatrixRun(apiBase, matrix, { intervalMs = 1000, onProgress } = {}) {
+  let current = matrix
+  while (current.status === 'RUNNING') {
+    await new Promise(resolve => setTimeout(resolve, intervalMs))
+    const response = await fetch(`${apiBase}/matrix-runs/${current.id}`)
+    if (!response.ok) throw new Error('Failed to poll matrix run')
+    current = await response.json()
+    if (onProgress) onProgress(current)
+  }
+  return current
+}
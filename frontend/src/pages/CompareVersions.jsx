@@ -2,6 +2,11 @@ import { useState, useEffect } from 'react'
 import { useParams, useNavigate } from 'react-router-dom'
 import { ArrowLeft, Split, Zap, AlertCircle } from 'lucide-react'
 import toast from 'react-hot-toast'
+import { findReusableRun, waitForMatrixRun } from '../lib/testRuns'
+import ResponseText from '../components/ResponseText'
+
+const API_BASE = 'http://localhost:8080/api'
+const MODELS = ['gpt-3.5-turbo', 'gpt-4']
 
 function CompareVersions() {
   const { id } = useParams() 
@@ -15,6 +20,9 @@ function CompareVersions() {
   const [loading, setLoading] = useState(false)
   const [resultA, setResultA] = useState(null)
   const [resultB, setResultB] = useState(null)
+  const [diff, setDiff] = useState(null)
+  const [models, setModels] = useState(['gpt-3.5-turbo'])
+  const [report, setReport] = useState(null)
 
   useEffect(() => {
     fetch(`http://localhost:8080/api/prompts/${id}`)
@@ -31,32 +39,68 @@ function CompareVersions() {
       })
   }, [id])
 
+  useEffect(() => {
+    if (!verA || !verB || verA == verB) {
+      setDiff(null)
+      return
+    }
+    fetch(`http://localhost:8080/api/prompts/${id}/diff?from=${verB}&to=${verA}`)
+      .then(r => r.json())
+      .then(setDiff)
+      .catch(error => console.error(error))
+  }, [id, verA, verB])
+
   const runComparison = async () => {
     if (!verA || !verB) return toast.error("Select two versions")
+    if (models.length === 0) return toast.error("Select at least one model")
     setLoading(true)
     setResultA(null) 
     setResultB(null)
+    setReport(null)
     
     const apiKey = localStorage.getItem('openai_api_key')
+    const testInputs = [{ question: inputVal }]
+    const fetchRun = async (runId) => {
+        const res = await fetch(`${API_BASE}/test-runs/${runId}`)
+        if (!res.ok) throw new Error('Failed to load test run')
+        return res.json()
+    }
 
-    const runOne = async (versionId) => {
-        const res = await fetch('http://localhost:8080/api/test-runs', {
+    try {
+        // a single model with both versions already run on this input needs no new job
+        if (models.length === 1) {
+            const reuse = await Promise.all([verA, verB].map(versionId => findReusableRun(API_BASE, {
+                promptVersionId: versionId,
+                aiProvider: 'openai',
+                modelName: models[0],
+                testInputs
+            }, apiKey)))
+            if (reuse.every(Boolean) && window.confirm('Both versions were already tested on this input. Show those runs instead of running again?')) {
+                setResultA(reuse[0].results[0])
+                setResultB(reuse[1].results[0])
+                toast.success("Identical prompts already tested, showing those runs")
+                return
+            }
+        }
+
+        // every version x model cell runs as one job on the server
+        const res = await fetch(`${API_BASE}/matrix-runs`, {
             method: 'POST',
             headers: { 'Content-Type': 'application/json', 'X-API-KEY': apiKey || '' },
             body: JSON.stringify({
-                promptVersionId: versionId,
-                aiProvider: 'openai',
-                modelName: 'gpt-3.5-turbo',
-                testInputs: [{ question: inputVal }]
+                promptVersionIds: [...new Set([Number(verA), Number(verB)])],
+                models: models.map(modelName => ({ aiProvider: 'openai', modelName })),
+                testInputs
             })
         })
-        return res.json()
-    }
+        if (!res.ok) throw new Error('Failed to start matrix run')
+        const finished = await waitForMatrixRun(API_BASE, await res.json(), { onProgress: setReport })
+        setReport(finished)
 
-    try {
-        const [resA, resB] = await Promise.all([runOne(verA), runOne(verB)])
-        setResultA(resA.results[0])
-        setResultB(resB.results[0])
+        const cellOf = versionId => finished.cells.find(cell => cell.promptVersionId == versionId && cell.modelName === models[0])
+        const [runA, runB] = await Promise.all([fetchRun(cellOf(verA).id), fetchRun(cellOf(verB).id)])
+        setResultA(runA.results[0])
+        setResultB(runB.results[0])
         toast.success("Comparison complete")
     } catch {
         toast.error("Failed to run comparison")
@@ -102,6 +146,22 @@ function CompareVersions() {
                 </button>
             </div>
             
+            <div className="flex gap-4 mb-4 text-sm text-gray-500 font-medium">
+                Models:
+                {MODELS.map(model => (
+                    <label key={model} className="flex items-center gap-1 text-gray-700">
+                        <input
+                            type="checkbox"
+                            checked={models.includes(model)}
+                            onChange={e => setModels(e.target.checked
+                                ? MODELS.filter(m => m === model || models.includes(m))
+                                : models.filter(m => m !== model))}
+                        />
+                        {model}
+                    </label>
+                ))}
+            </div>
+
             <div className="grid grid-cols-2 gap-8 text-sm text-gray-500 font-medium">
                 <div>
                     Select Left Version:
@@ -124,6 +184,59 @@ function CompareVersions() {
             </div>
         </div>
 
+        {/* Diff (right version -> left version) */}
+        {diff && (
+            <div className="bg-white rounded-xl shadow-sm border border-gray-200 mb-8 overflow-hidden">
+                <div className="px-4 py-3 border-b border-gray-100 bg-gray-50 text-sm font-medium text-gray-700">
+                    {diff.identical
+                        ? 'Identical content: existing results are reused'
+                        : `Changes: +${diff.added} / -${diff.removed} lines`}
+                </div>
+                {!diff.identical && (
+                    <pre className="text-xs font-mono max-h-64 overflow-auto p-4">
+                        {diff.lines.map((line, i) => (
+                            <div key={i} className={
+                                line.type === 'ADDED' ? 'bg-green-50 text-green-700'
+                                : line.type === 'REMOVED' ? 'bg-red-50 text-red-700'
+                                : 'text-gray-500'}>
+                                {line.type === 'ADDED' ? '+ ' : line.type === 'REMOVED' ? '- ' : '  '}{line.text}
+                            </div>
+                        ))}
+                    </pre>
+                )}
+            </div>
+        )}
+
+        {/* Matrix report: one row per version x model cell */}
+        {report && (
+            <div className="bg-white rounded-xl shadow-sm border border-gray-200 mb-8 overflow-hidden">
+                <table className="w-full text-sm">
+                    <thead className="bg-gray-50 text-gray-500 text-xs uppercase">
+                        <tr>
+                            <th className="text-left px-4 py-2">Version</th>
+                            <th className="text-left px-4 py-2">Model</th>
+                            <th className="text-left px-4 py-2">Status</th>
+                            <th className="text-right px-4 py-2">p50 latency</th>
+                            <th className="text-right px-4 py-2">Avg quality</th>
+                            <th className="text-right px-4 py-2">Cost</th>
+                        </tr>
+                    </thead>
+                    <tbody>
+                        {report.cells.map(cell => (
+                            <tr key={cell.id} className="border-t border-gray-100">
+                                <td className="px-4 py-2">V{prompt.versions.find(v => v.id == cell.promptVersionId)?.versionNumber}</td>
+                                <td className="px-4 py-2">{cell.modelName}</td>
+                                <td className="px-4 py-2">{cell.status}</td>
+                                <td className="px-4 py-2 text-right">{cell.metrics?.p50ResponseTimeMs ?? '-'} ms</td>
+                                <td className="px-4 py-2 text-right">{cell.metrics?.averageQualityScore?.toFixed(2) ?? '-'}</td>
+                                <td className="px-4 py-2 text-right">${cell.metrics?.totalCostUsd?.toFixed(4) ?? '-'}</td>
+                            </tr>
+                        ))}
+                    </tbody>
+                </table>
+            </div>
+        )}
+
         {/* Results Grid */}
         <div className="grid grid-cols-2 gap-8">
             <ResultCard versionId={verA} result={resultA} prompt={prompt} />
@@ -136,20 +249,37 @@ function CompareVersions() {
 
 function ResultCard({ versionId, result, prompt }) {
     const version = prompt.versions.find(v => v.id == versionId)
+    const [content, setContent] = useState('')
+
+    // version headers carry no text; fetch it for the preview line
+    useEffect(() => {
+        if (!versionId) return
+        let cancelled = false
+        fetch(`http://localhost:8080/api/prompts/${prompt.id}/versions/${versionId}`)
+            .then(r => r.json())
+            .then(data => { if (!cancelled) setContent(data.content) })
+            .catch(error => console.error(error))
+        return () => { cancelled = true }
+    }, [prompt.id, versionId])
+
     if (!version) return null
 
     return (
         <div className="bg-white rounded-xl shadow-sm border border-gray-200 flex flex-col h-full">
             <div className="p-4 border-b border-gray-100 bg-gray-50 rounded-t-xl">
                 <span className="font-bold text-gray-800">Version {version.versionNumber}</span>
-                <div className="text-xs text-gray-400 font-mono mt-2 truncate">{version.content}</div>
+                <div className="text-xs text-gray-400 font-mono mt-2 truncate">{content}</div>
             </div>
             
             <div className="p-6 flex-1">
                 {result ? (
                     <>
                         <div className="prose prose-sm max-w-none mb-6">
-                            <p className="whitespace-pre-wrap text-gray-800">{result.aiResponse}</p>
+                            {result.status === 'FAILED' ? (
+                                <p className="whitespace-pre-wrap text-red-600">Failed: {result.errorMessage}</p>
+                            ) : (
+                                <ResponseText result={result} className="whitespace-pre-wrap text-gray-800" />
+                            )}
                         </div>
                         <div className="grid grid-cols-3 gap-2 text-center text-xs border-t pt-4">
                             <div className="p-2 bg-blue-50 rounded text-blue-700">
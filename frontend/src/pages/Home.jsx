@@ -7,23 +7,36 @@ import SettingsModal from '../components/SettingsModal'
 function Home() {
   const [prompts, setPrompts] = useState([])
   const [loading, setLoading] = useState(true)
+  const [nextCursor, setNextCursor] = useState(null)
+  const [loadingMore, setLoadingMore] = useState(false)
   const [showQuickTest, setShowQuickTest] = useState(false)
   const [showSettings, setShowSettings] = useState(false) // New State
   const navigate = useNavigate()
 
-  useEffect(() => {
-    fetch('http://localhost:8080/api/prompts')
+  // the library is served newest-first in pages; nextCursor is null on the last one
+  const fetchPage = (before) => {
+    const query = before ? `?before=${before}` : ''
+    return fetch(`http://localhost:8080/api/prompts${query}`)
       .then(response => response.json())
-      .then(data => {
-        setPrompts(data)
-        setLoading(false)
-      })
-      .catch(error => {
-        console.error('Error:', error)
-        setLoading(false)
+      .then(page => {
+        setPrompts(current => before ? [...current, ...page.items] : page.items)
+        setNextCursor(page.nextCursor)
       })
+  }
+
+  useEffect(() => {
+    fetchPage(null)
+      .catch(error => console.error('Error:', error))
+      .finally(() => setLoading(false))
   }, [])
 
+  const loadMore = () => {
+    setLoadingMore(true)
+    fetchPage(nextCursor)
+      .catch(error => console.error('Error:', error))
+      .finally(() => setLoadingMore(false))
+  }
+
   if (loading) {
     return (
       <div className="min-h-screen bg-transparent flex items-center justify-center">
@@ -94,7 +107,7 @@ function Home() {
         >
           <h2 className="text-xl font-bold text-gray-800 mb-6 flex items-center gap-2">
             <MessageSquare className="w-5 h-5 text-gray-400" />
-            Your Prompt Library <span className="text-gray-400 font-normal">({prompts.length})</span>
+            Your Prompt Library <span className="text-gray-400 font-normal">({prompts.length}{nextCursor ? '+' : ''})</span>
           </h2>
           
           <div className="grid gap-5">
@@ -128,12 +141,24 @@ function Home() {
                   <div className="flex items-center gap-4 text-sm text-gray-400">
                     <span>Created: {new Date(prompt.createdAt).toLocaleDateString()}</span>
                     <span>•</span>
-                    <span>{prompt.versions ? prompt.versions.length : 0} Versions</span>
+                    <span>{prompt.versionCount || 0} Versions</span>
                   </div>
                 </div>
               ))
             )}
           </div>
+
+          {nextCursor && (
+            <div className="mt-6 text-center">
+              <button
+                onClick={loadMore}
+                disabled={loadingMore}
+                className="px-5 py-2 bg-white border border-gray-200 rounded-xl text-gray-600 hover:shadow-md transition-all font-medium disabled:opacity-50"
+              >
+                {loadingMore ? 'Loading...' : 'Load more'}
+              </button>
+            </div>
+          )}
         </div>
       </div>
     </div>
@@ -6,6 +6,8 @@ import {
   BarChart3, Database, Split, Download 
 } from 'lucide-react'
 import { LineChart, Line, XAxis, YAxis, CartesianGrid, Tooltip, ResponsiveContainer } from 'recharts'
+import { waitForTestRun, findReusableRun } from '../lib/testRuns'
+import ResponseText from '../components/ResponseText'
 
 const API_BASE = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080/api'
 
@@ -16,11 +18,20 @@ function PromptDetail() {
   const [loading, setLoading] = useState(true)
   const [selectedVersionId, setSelectedVersionId] = useState(null)
   const [testInputs, setTestInputs] = useState([{ question: '' }])
-  const [modelName, setModelName] = useState('gpt-3.5-turbo')
+  const [datasets, setDatasets] = useState([])
+  const [datasetId, setDatasetId] = useState('')  // '' runs the inline inputs
+  const [uploading, setUploading] = useState(false)
+  const [earlyStop, setEarlyStop] = useState(false)
+  const [intervalWidth, setIntervalWidth] = useState('0.1')
+  const [baselineRunId, setBaselineRunId] = useState('')  // '' targets the interval width only
+  const [target, setTarget] = useState('openai:gpt-3.5-turbo')  // provider:model
   const [testing, setTesting] = useState(false)
   const [currentResult, setCurrentResult] = useState(null)
   const [testHistory, setTestHistory] = useState([])
+  const [historyCursor, setHistoryCursor] = useState(null)
+  const [loadingHistory, setLoadingHistory] = useState(false)
   const [newVersionContent, setNewVersionContent] = useState('')
+  const [savedContent, setSavedContent] = useState(null)
   const [isCreatingVersion, setIsCreatingVersion] = useState(false)
 
   const fetchPrompt = useCallback(async () => {
@@ -33,7 +44,6 @@ function PromptDetail() {
       if (!selectedVersionId && data.versions && data.versions.length > 0) {
         const latest = data.versions[data.versions.length - 1]
         setSelectedVersionId(latest.id)
-        setNewVersionContent(latest.content)
       }
       setLoading(false)
     } catch (error) {
@@ -43,54 +53,109 @@ function PromptDetail() {
     }
   }, [id, selectedVersionId])
 
-  const fetchHistory = useCallback(async (versionId) => {
+  // runs are served newest-first in pages; nextCursor is null on the last one
+  const fetchHistory = useCallback(async (versionId, before) => {
     if (!versionId) return
     try {
-      const response = await fetch(`${API_BASE}/test-runs/version/${versionId}`)
+      const query = before ? `?before=${before}` : ''
+      const response = await fetch(`${API_BASE}/test-runs/version/${versionId}/summary${query}`)
       if (response.ok) {
-        const data = await response.json()
-        setTestHistory(data)
+        const page = await response.json()
+        setTestHistory(current => before ? [...current, ...page.items] : page.items)
+        setHistoryCursor(page.nextCursor)
       }
     } catch (error) {
       console.error('Failed to load history', error)
     }
   }, [])
 
+  const loadMoreHistory = async () => {
+    setLoadingHistory(true)
+    await fetchHistory(selectedVersionId, historyCursor)
+    setLoadingHistory(false)
+  }
+
+  const fetchDatasets = useCallback(async () => {
+    try {
+      const response = await fetch(`${API_BASE}/datasets`)
+      if (response.ok) {
+        setDatasets(await response.json())
+      }
+    } catch (error) {
+      console.error('Failed to load datasets', error)
+    }
+  }, [])
+
   useEffect(() => {
     fetchPrompt()
   }, [fetchPrompt])
 
   useEffect(() => {
-    if (selectedVersionId) {
-      fetchHistory(selectedVersionId)
-      const version = prompt?.versions?.find(v => v.id == selectedVersionId)
-      if (version) setNewVersionContent(version.content)
+    fetchDatasets()
+  }, [fetchDatasets])
+
+  // the file is sent as the raw request body so the server parses it as it arrives
+  const uploadDataset = async (file) => {
+    if (!file) return
+    const format = file.name.toLowerCase().endsWith('.csv') ? 'csv' : 'jsonl'
+    setUploading(true)
+    try {
+      const params = new URLSearchParams({ name: file.name, format })
+      const response = await fetch(`${API_BASE}/datasets?${params}`, {
+        method: 'POST',
+        headers: { 'Content-Type': format === 'csv' ? 'text/csv' : 'application/x-ndjson' },
+        body: file
+      })
+      if (!response.ok) {
+        const error = await response.json().catch(() => null)
+        throw new Error(error?.message || 'Upload failed')
+      }
+      const dataset = await response.json()
+      toast.success(`Imported ${dataset.rowCount} rows`)
+      await fetchDatasets()
+      setDatasetId(String(dataset.id))
+    } catch (e) {
+      toast.error(e.message)
+    } finally {
+      setUploading(false)
     }
-  }, [selectedVersionId, prompt, fetchHistory])
+  }
 
-  const downloadCSV = () => {
-    if (!currentResult || !currentResult.results) {
-        toast.error("No results to export")
-        return
+  useEffect(() => {
+    if (selectedVersionId) {
+      fetchHistory(selectedVersionId)
     }
-   
-    let csvContent = "data:text/csv;charset=utf-8,Input,Output,Latency(ms),Cost($),Quality(0-1)\n"
+  }, [selectedVersionId, fetchHistory])
 
-    currentResult.results.forEach(row => {
-        const inputStr = JSON.stringify(row.inputVariables).replace(/"/g, '""')
-        const outputStr = row.aiResponse ? row.aiResponse.replace(/"/g, '""').replace(/(\r\n|\n|\r)/gm, " ") : ""
-        
-        csvContent += `"${inputStr}","${outputStr}",${row.responseTimeMs},${row.costUsd},${row.qualityScore}\n`
-    })
+  // the prompt only carries version headers; load the text of the selected one
+  useEffect(() => {
+    if (!selectedVersionId) return
+    let cancelled = false
+    setSavedContent(null)
+    fetch(`${API_BASE}/prompts/${id}/versions/${selectedVersionId}`)
+      .then(response => {
+        if (!response.ok) throw new Error('Failed to load version')
+        return response.json()
+      })
+      .then(version => {
+        if (cancelled) return
+        setSavedContent(version.content)
+        setNewVersionContent(version.content)
+      })
+      .catch(error => {
+        console.error(error)
+        toast.error('Failed to load version')
+      })
+    return () => { cancelled = true }
+  }, [id, selectedVersionId])
 
-    const encodedUri = encodeURI(csvContent)
+  // the server streams the export from the database, including full long responses
+  const downloadExport = (params) => {
     const link = document.createElement("a")
-    link.setAttribute("href", encodedUri)
-    link.setAttribute("download", `test_run_${currentResult.id}_v${selectedVersionId}.csv`)
+    link.setAttribute("href", `${API_BASE}/test-runs/export?${new URLSearchParams(params)}`)
     document.body.appendChild(link)
     link.click()
     document.body.removeChild(link)
-    toast.success("CSV Downloaded")
   }
 
   const handleCreateVersion = async () => {
@@ -126,7 +191,32 @@ function PromptDetail() {
     const apiKey = localStorage.getItem('openai_api_key') || ''
     
     try {
-        const formattedInputs = testInputs.map(input => ({ question: input.question }))
+        const separator = target.indexOf(':')
+        const request = {
+            promptVersionId: selectedVersionId,
+            aiProvider: target.slice(0, separator),
+            modelName: target.slice(separator + 1)
+        }
+        if (datasetId) {
+            request.datasetId = Number(datasetId)
+        } else {
+            request.testInputs = testInputs.map(input => ({ question: input.question }))
+        }
+        if (earlyStop) {
+            request.sampling = {
+                maxIntervalWidth: intervalWidth ? Number(intervalWidth) : null,
+                baselineRunId: baselineRunId ? Number(baselineRunId) : null
+            }
+        }
+
+        // identical prompt text already run on these inputs: offer that run instead;
+        // a sampled run is compared against its baseline as it goes, so it always runs
+        const reusable = request.sampling ? null : await findReusableRun(API_BASE, request, apiKey)
+        if (reusable && window.confirm(`Identical prompt already tested in run #${reusable.id}. Show that run instead of running again?`)) {
+            setCurrentResult(reusable)
+            toast.success(`Showing run #${reusable.id}`)
+            return
+        }
         
         const response = await fetch(`${API_BASE}/test-runs`, {
             method: 'POST',
@@ -134,15 +224,13 @@ function PromptDetail() {
                 'Content-Type': 'application/json',
                 'X-API-KEY': apiKey 
             },
-            body: JSON.stringify({
-                promptVersionId: selectedVersionId,
-                aiProvider: 'openai',
-                modelName: modelName,
-                testInputs: formattedInputs
-            })
+            body: JSON.stringify(request)
         })
         
-        const data = await response.json()
+        if (!response.ok) throw new Error('Failed to start test run')
+        const submitted = await response.json()
+        setCurrentResult(submitted)
+        const data = await waitForTestRun(API_BASE, submitted, { onProgress: setCurrentResult })
         setCurrentResult(data)
         toast.success('Test run completed')
         fetchHistory(selectedVersionId)
@@ -156,8 +244,7 @@ function PromptDetail() {
 
   if (loading) return <div className="p-10 text-center text-gray-500">Loading workspace...</div>
 
-  const currentVersion = prompt?.versions?.find(v => v.id == selectedVersionId)
-  const isModified = currentVersion && currentVersion.content !== newVersionContent
+  const isModified = savedContent !== null && savedContent !== newVersionContent
 
   return (
     <div className="min-h-screen bg-gray-50 pb-20">
@@ -234,16 +321,81 @@ function PromptDetail() {
                         </h3>
                         <div className="flex gap-2">
                              <select 
-                                value={modelName}
-                                onChange={(e) => setModelName(e.target.value)}
+                                value={target}
+                                onChange={(e) => setTarget(e.target.value)}
                                 className="text-xs bg-gray-50 border border-gray-200 rounded px-2 py-1 outline-none"
                              >
-                                <option value="gpt-3.5-turbo">GPT-3.5 Turbo</option>
-                                <option value="gpt-4">GPT-4</option>
+                                <option value="openai:gpt-3.5-turbo">GPT-3.5 Turbo</option>
+                                <option value="openai:gpt-4">GPT-4</option>
+                                <option value="anthropic:claude-3-haiku-20240307">Claude 3 Haiku</option>
+                                <option value="fastest:fast-chat">Fastest of fast-chat</option>
                              </select>
                         </div>
                     </div>
 
+                    <div className="flex gap-2 mb-3">
+                        <select
+                            value={datasetId}
+                            onChange={(e) => setDatasetId(e.target.value)}
+                            className="flex-1 text-sm bg-gray-50 border border-gray-200 rounded-lg px-3 py-2 outline-none"
+                        >
+                            <option value="">Inline inputs</option>
+                            {datasets.filter(d => d.status === 'READY').map(d => (
+                                <option key={d.id} value={d.id}>{d.name} ({d.rowCount} rows)</option>
+                            ))}
+                        </select>
+                        <label className={`px-3 py-2 bg-gray-100 hover:bg-gray-200 rounded-lg text-gray-600 text-sm cursor-pointer ${uploading ? 'opacity-50 pointer-events-none' : ''}`}>
+                            {uploading ? 'Importing...' : 'Upload CSV/JSONL'}
+                            <input
+                                type="file"
+                                accept=".csv,.jsonl,.ndjson"
+                                className="hidden"
+                                onChange={(e) => {
+                                    uploadDataset(e.target.files[0])
+                                    e.target.value = ''
+                                }}
+                            />
+                        </label>
+                    </div>
+
+                    {datasetId ? (
+                        <div className="space-y-2">
+                        <p className="text-xs text-gray-500">
+                            Columns: {datasets.find(d => String(d.id) === datasetId)?.columns?.join(', ') || 'none'}
+                        </p>
+                        <div className="flex flex-wrap items-center gap-2 text-xs text-gray-600">
+                            <label className="flex items-center gap-1">
+                                <input type="checkbox" checked={earlyStop} onChange={(e) => setEarlyStop(e.target.checked)} />
+                                Stop early once quality is known
+                            </label>
+                            {earlyStop && (
+                                <>
+                                    <span>95% interval at most</span>
+                                    <input
+                                        type="number"
+                                        step="0.01"
+                                        min="0"
+                                        value={intervalWidth}
+                                        onChange={(e) => setIntervalWidth(e.target.value)}
+                                        className="w-16 bg-gray-50 border border-gray-200 rounded px-2 py-1 outline-none"
+                                        title="Leave empty to stop on the baseline comparison only"
+                                    />
+                                    <span>wide, or once different from</span>
+                                    <select
+                                        value={baselineRunId}
+                                        onChange={(e) => setBaselineRunId(e.target.value)}
+                                        className="bg-gray-50 border border-gray-200 rounded px-2 py-1 outline-none"
+                                    >
+                                        <option value="">no baseline</option>
+                                        {testHistory.filter(run => run.status === 'COMPLETED').map(run => (
+                                            <option key={run.id} value={run.id}>run #{run.id}</option>
+                                        ))}
+                                    </select>
+                                </>
+                            )}
+                        </div>
+                        </div>
+                    ) : (
                     <div className="space-y-3">
                         {testInputs.map((input, idx) => (
                             <div key={idx} className="flex gap-3">
@@ -269,6 +421,7 @@ function PromptDetail() {
                             </div>
                         ))}
                     </div>
+                    )}
 
                     <button 
                         onClick={runTest}
@@ -288,12 +441,20 @@ function PromptDetail() {
                 {currentResult && (
                     <div className="bg-white rounded-xl shadow-sm border border-blue-200 overflow-hidden animate-fadeIn">
                         <div className="bg-blue-50 px-4 py-3 border-b border-blue-100 flex justify-between items-center">
-                            <span className="text-sm font-bold text-blue-800">Latest Run Results</span>
+                            <span className="text-sm font-bold text-blue-800">
+                                Latest Run Results
+                                {currentResult.sampling?.stopReason && (
+                                    <span className="ml-2 text-xs font-normal text-blue-600">
+                                        stopped early ({currentResult.sampling.stopReason === 'SIGNIFICANT' ? 'differs from baseline' : 'interval reached'}),
+                                        {' '}{currentResult.sampling.skippedInputs} calls saved
+                                    </span>
+                                )}
+                            </span>
                             
                             {/* 3. DOWNLOAD BUTTON */}
                             <div className="flex gap-2">
                                 <button 
-                                    onClick={downloadCSV}
+                                    onClick={() => downloadExport({ runId: currentResult.id, format: 'csv' })}
                                     className="flex items-center gap-1 bg-white px-2 py-1 rounded text-xs border border-blue-200 text-blue-700 hover:bg-blue-50 transition-colors"
                                     title="Download CSV"
                                 >
@@ -310,8 +471,13 @@ function PromptDetail() {
                                 <div key={i} className="bg-gray-50 p-3 rounded-lg border border-gray-200 text-sm">
                                     <div className="font-mono text-xs text-gray-500 mb-1">
                                         Input: {JSON.stringify(res.inputVariables)}
+                                        {res.servedBy && <span className="ml-2">via {res.servedBy}</span>}
                                     </div>
-                                    <p className="text-gray-800 whitespace-pre-wrap">{res.aiResponse}</p>
+                                    {res.status === 'FAILED' ? (
+                                        <p className="text-red-600 whitespace-pre-wrap">Failed: {res.errorMessage}</p>
+                                    ) : (
+                                        <ResponseText result={res} className="text-gray-800 whitespace-pre-wrap" />
+                                    )}
                                     <div className="mt-2 flex gap-3 text-xs text-gray-400 border-t border-gray-200 pt-2">
                                         <span>Cost: ${res.costUsd}</span>
                                         <span className={res.qualityScore >= 0.7 ? "text-green-600 font-bold" : "text-amber-600"}>
@@ -340,7 +506,8 @@ function PromptDetail() {
                                     <Tooltip 
                                         contentStyle={{ borderRadius: '8px', border: 'none', boxShadow: '0 4px 12px rgba(0,0,0,0.1)' }}
                                     />
-                                    <Line type="monotone" dataKey="metrics.averageResponseTimeMs" stroke="#3b82f6" strokeWidth={2} dot={false} />
+                                    <Line type="monotone" dataKey="metrics.averageResponseTimeMs" name="avg" stroke="#3b82f6" strokeWidth={2} dot={false} />
+                                    <Line type="monotone" dataKey="metrics.p99ResponseTimeMs" name="p99" stroke="#f97316" strokeWidth={2} dot={false} />
                                 </LineChart>
                             </ResponsiveContainer>
                          ) : (
@@ -351,8 +518,28 @@ function PromptDetail() {
 
                 {/* History List */}
                 <div className="bg-white rounded-xl shadow-sm border border-gray-200 overflow-hidden flex flex-col max-h-[400px]">
-                    <div className="px-4 py-3 border-b border-gray-100 bg-gray-50">
+                    <div className="px-4 py-3 border-b border-gray-100 bg-gray-50 flex justify-between items-center">
                         <h3 className="text-sm font-bold text-gray-800">Run History</h3>
+                        {testHistory.length > 0 && (
+                            <div className="flex gap-2">
+                                <button
+                                    onClick={() => downloadExport({ versionId: selectedVersionId, format: 'csv' })}
+                                    className="flex items-center gap-1 text-xs text-gray-500 hover:text-blue-600"
+                                    title="Export every result of this version"
+                                >
+                                    <Download className="w-3 h-3" />
+                                    CSV
+                                </button>
+                                <button
+                                    onClick={() => downloadExport({ versionId: selectedVersionId, format: 'jsonl' })}
+                                    className="flex items-center gap-1 text-xs text-gray-500 hover:text-blue-600"
+                                    title="Export every result of this version"
+                                >
+                                    <Download className="w-3 h-3" />
+                                    JSONL
+                                </button>
+                            </div>
+                        )}
                     </div>
                     <div className="overflow-y-auto flex-1">
                         {testHistory.length === 0 ? (
@@ -373,6 +560,9 @@ function PromptDetail() {
                                     <div className="text-right">
                                         <div className="text-xs font-bold text-gray-700">{Math.round(run.metrics?.averageResponseTimeMs || 0)}ms</div>
                                         <div className="text-[10px] text-gray-400 flex items-center gap-1 justify-end">
+                                            {run.metrics?.p99ResponseTimeMs != null && (
+                                                <span>p99 {run.metrics.p99ResponseTimeMs}ms</span>
+                                            )}
                                             {run.metrics?.averageQualityScore > 0 && (
                                                 <span className="text-purple-500 font-medium">Q: {run.metrics.averageQualityScore.toFixed(2)}</span>
                                             )}
@@ -381,6 +571,15 @@ function PromptDetail() {
                                 </div>
                             ))
                         )}
+                        {historyCursor && (
+                            <button
+                                onClick={loadMoreHistory}
+                                disabled={loadingHistory}
+                                className="w-full p-2 text-xs text-gray-500 hover:text-blue-600 disabled:opacity-50"
+                            >
+                                {loadingHistory ? 'Loading...' : 'Load more'}
+                            </button>
+                        )}
                     </div>
                 </div>
             </div>